@@ -20,6 +20,7 @@ import com.antonjohansson.svncommit.core.config.Configuration;
 import com.antonjohansson.svncommit.core.controller.Controller;
 import com.antonjohansson.svncommit.core.utils.ForcedExit;
 import com.antonjohansson.svncommit.core.utils.UtilityModule;
+import com.antonjohansson.svncommit.core.view.StallDetector;
 import com.antonjohansson.svncommit.core.view.View;
 
 import static com.antonjohansson.svncommit.CLI.APPLICATION;
@@ -123,6 +124,13 @@ public class SvnCommitApplication extends Application
 		stage.getIcons().add(new Image("svn.png"));
 		stage.setOnCloseRequest(e -> worker.shutdown());
 		stage.show();
+
+		if (configuration.getStallThreshold() > 0)
+		{
+			StallDetector stallDetector = new StallDetector(configuration.getStallThreshold(), System.err::print);
+			stallDetector.start();
+			worker.onShutdown(stallDetector::stop);
+		}
 	}
 
 	private CommandLine getCommand()
@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.application.commit;
+
+import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+
+import static java.util.Collections.newSetFromMap;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The difference between two sets of modified items.
+ *
+ * @author Anton Johansson
+ */
+class ChangeSet
+{
+	private final List<ModifiedItem> added;
+	private final List<ModifiedItem> removed;
+	private final Map<ModifiedItem, ModifiedItem> changed;
+
+	/**
+	 * Constructs a new {@link ChangeSet}.
+	 *
+	 * @param added The items that were added.
+	 * @param removed The previous items that were removed.
+	 * @param changed The replacements of the previous items that were changed, by previous item.
+	 */
+	ChangeSet(List<ModifiedItem> added, List<ModifiedItem> removed, Map<ModifiedItem, ModifiedItem> changed)
+	{
+		this.added = unmodifiableList(added);
+		this.removed = unmodifiableList(removed);
+		this.changed = unmodifiableMap(changed);
+	}
+
+	public List<ModifiedItem> getAdded()
+	{
+		return added;
+	}
+
+	public List<ModifiedItem> getRemoved()
+	{
+		return removed;
+	}
+
+	public Map<ModifiedItem, ModifiedItem> getChanged()
+	{
+		return changed;
+	}
+
+	/**
+	 * Gets whether or not there are any changes.
+	 *
+	 * @return Returns {@code true} if nothing was added, removed or changed.
+	 */
+	public boolean isEmpty()
+	{
+		return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+	}
+
+	/**
+	 * Applies the changes to the given items.
+	 * <p>
+	 * Unchanged items are kept in their current order, changed items are
+	 * replaced where they are, and added items are appended.
+	 *
+	 * @param items The items to apply the changes to.
+	 * @return Returns the items with the changes applied.
+	 */
+	public List<ModifiedItem> apply(Collection<ModifiedItem> items)
+	{
+		Set<ModifiedItem> removedItems = newSetFromMap(new IdentityHashMap<>());
+		removedItems.addAll(removed);
+
+		List<ModifiedItem> result = new ArrayList<>(items.size() + added.size());
+		for (ModifiedItem item : items)
+		{
+			if (!removedItems.contains(item))
+			{
+				result.add(changed.getOrDefault(item, item));
+			}
+		}
+		result.addAll(added);
+		return result;
+	}
+}
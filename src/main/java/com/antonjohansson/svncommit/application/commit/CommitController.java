@@ -16,24 +16,37 @@
 package com.antonjohansson.svncommit.application.commit;
 
 import com.antonjohansson.svncommit.application.commit.context.CommitContextMenu;
+import com.antonjohansson.svncommit.core.concurrent.TaskHandle;
 import com.antonjohansson.svncommit.core.concurrent.Worker;
 import com.antonjohansson.svncommit.core.config.Configuration;
 import com.antonjohansson.svncommit.core.controller.AbstractController;
 import com.antonjohansson.svncommit.core.controller.Controller;
 import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+import com.antonjohansson.svncommit.core.utils.AsyncSubversion;
 import com.antonjohansson.svncommit.core.utils.Subversion;
+import com.antonjohansson.svncommit.core.utils.WorkingCopyWatcher;
+import com.antonjohansson.svncommit.core.view.Batcher;
 import com.antonjohansson.svncommit.core.view.ConsoleView;
 import com.antonjohansson.svncommit.core.view.DialogFactory;
 import com.antonjohansson.svncommit.core.view.LoadingView;
 
+import static com.antonjohansson.svncommit.core.concurrent.Lane.STATUS;
+import static java.lang.System.lineSeparator;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.newSetFromMap;
 import static java.util.stream.Collectors.toList;
+import static javafx.application.Platform.runLater;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import com.google.inject.Inject;
 import com.google.inject.Provider;
@@ -54,9 +67,14 @@ class CommitController extends AbstractController<LoadingView>
 	private final Provider<ConsoleView> consoleViewProvider;
 	private final DialogFactory dialogFactory;
 	private final Subversion subversion;
+	private final AsyncSubversion asyncSubversion;
 	private final Worker worker;
 	private final Provider<CommitContextMenu> contextMenuProvider;
-	private Collection<ModifiedItem> items = emptyList();
+	private final WorkingCopyWatcher watcher;
+	private final PathTrie index = new PathTrie();
+	private final AtomicLong generation = new AtomicLong();
+	// Replaced on the STATUS lane, and read by the commit handler on the JavaFX application thread
+	private volatile Collection<ModifiedItem> items = emptyList();
 
 	@Inject
 	CommitController(
@@ -66,8 +84,10 @@ class CommitController extends AbstractController<LoadingView>
 			Provider<ConsoleView> consoleViewProvider,
 			DialogFactory dialogFactory,
 			Subversion subversion,
+			AsyncSubversion asyncSubversion,
 			Worker worker,
-			Provider<CommitContextMenu> contextMenuProvider)
+			Provider<CommitContextMenu> contextMenuProvider,
+			WorkingCopyWatcher watcher)
 	{
 		super(loadingView);
 		this.configuration = configuration;
@@ -76,18 +96,24 @@ class CommitController extends AbstractController<LoadingView>
 		this.consoleViewProvider = consoleViewProvider;
 		this.dialogFactory = dialogFactory;
 		this.subversion = subversion;
+		this.asyncSubversion = asyncSubversion;
 		this.worker = worker;
 		this.contextMenuProvider = contextMenuProvider;
+		this.watcher = watcher;
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public void initialize()
 	{
-		commitView.initialize(contextMenuProvider, this::refresh);
+		commitView.initialize(contextMenuProvider, this::refreshItems);
 		initializeHandlers();
 
 		loadingView.setContent(commitView);
+		if (configuration.isWatchEnabled())
+		{
+			watcher.start(this::refresh, this::refresh);
+		}
 		refresh();
 	}
 
@@ -115,35 +141,126 @@ class CommitController extends AbstractController<LoadingView>
 					.map(s -> s.getFileName())
 					.collect(toList());
 
-			subversion.commit(message, paths, consoleView::append, consoleView::showCompletionIcon);
+			asyncSubversion.commit(message, paths, consoleView::append).whenComplete((success, failure) ->
+			{
+				if (failure != null)
+				{
+					consoleView.append(failure.getMessage() + lineSeparator());
+				}
+				consoleView.showCompletionIcon(failure == null && success);
+			});
 		});
 
 		commitView.setReplicationColumnsVisible(configuration.isReplicationEnabled());
 	}
 
-	private void refresh()
+	private void refreshChanges()
 	{
-		if (!startLoading())
+		if (watcher.isWatching())
 		{
-			return;
+			watcher.flush();
 		}
+		else
+		{
+			refresh();
+		}
+	}
+
+	private void refreshItems(Collection<ModifiedItem> items)
+	{
+		// Adding or deleting a directory affects everything below it, at any depth
+		List<String> paths = items.stream()
+				.map(ModifiedItem::getFileName)
+				.collect(toList());
+
+		worker.submit(STATUS, handle ->
+		{
+			Set<ModifiedItem> known = newSetFromMap(new IdentityHashMap<>());
+			paths.forEach(path -> known.addAll(index.under(path)));
+			Reconciliation reconciliation = new Reconciliation(known);
+			subversion.getModifiedItemsUnder(paths).forEach(reconciliation);
+			apply(reconciliation.complete());
+		});
+	}
+
+	private void refresh(Collection<String> directories)
+	{
+		worker.submit(STATUS, handle ->
+		{
+			Reconciliation reconciliation = new Reconciliation(index.within(directories));
+			subversion.getModifiedItems(directories).forEach(reconciliation);
+			apply(reconciliation.complete());
+		});
+	}
 
-		worker.submit(() ->
+	private void refresh()
+	{
+		// Every request bumps the generation, so that only the latest one hides the progress
+		generation.incrementAndGet();
+		loadingView.startProgress();
+
+		worker.submit(STATUS, "refresh", handle ->
 		{
-			items = getModifiedItems();
-			commitView.setItems(items);
-			loadingView.setLoading(false);
+			long current = generation.get();
+			Reconciliation reconciliation = new Reconciliation(items);
+			if (items.isEmpty())
+			{
+				// Nothing is shown yet, so stream the items into the view as they are read. Streamed
+				// items cannot be taken back, so if the refresh is cancelled or fails, the items that
+				// were streamed are still kept, and the next refresh reconciles the rest.
+				Batcher<ModifiedItem> batcher = commitView.streamItems(loadingView::updateProgress);
+				try
+				{
+					subversion.readModifiedItems(reconciliation.andThen(batcher));
+				}
+				finally
+				{
+					ChangeSet changes = reconciliation.complete();
+					items = changes.apply(items);
+					index.apply(changes);
+					batcher.complete(() -> stopProgress(current));
+				}
+			}
+			else
+			{
+				subversion.readModifiedItems(unlessCancelled(handle, reconciliation));
+				if (!handle.isCancelled())
+				{
+					apply(reconciliation.complete());
+					stopProgress(current);
+				}
+			}
 		});
 	}
 
-	private synchronized boolean startLoading()
+	private void stopProgress(long current)
+	{
+		if (generation.get() == current)
+		{
+			loadingView.stopProgress();
+		}
+	}
+
+	private static <T> Consumer<T> unlessCancelled(TaskHandle handle, Consumer<T> consumer)
+	{
+		// The output is still read to the end, but a cancelled task stops doing any work with it
+		return item ->
+		{
+			if (!handle.isCancelled())
+			{
+				consumer.accept(item);
+			}
+		};
+	}
+
+	private void apply(ChangeSet changes)
 	{
-		if (!loadingView.isLoading())
+		if (!changes.isEmpty())
 		{
-			loadingView.setLoading(true);
-			return true;
+			items = changes.apply(items);
+			index.apply(changes);
+			commitView.applyChanges(changes);
 		}
-		return false;
 	}
 
 	private void compare()
@@ -158,7 +275,11 @@ class CommitController extends AbstractController<LoadingView>
 		{
 			return;
 		}
-		commitView.selectedItems().forEach(i -> subversion.compare(i.getFileName()));
+		commitView.selectedItems().forEach(i -> asyncSubversion.compare(i.getFileName()).exceptionally(e ->
+		{
+			runLater(() -> dialogFactory.error(e.getMessage()));
+			return null;
+		}));
 	}
 
 	private void changeDoCommit()
@@ -169,33 +290,17 @@ class CommitController extends AbstractController<LoadingView>
 
 		boolean doCommit = !allMarked;
 		commitView.selectedItems()
-				.filter(s -> s.getStatus().isCommitable())
+				.filter(ModifiedItem::isCommitable)
 				.forEach(i -> i.setDoCommit(doCommit));
 	}
 
-	private Collection<ModifiedItem> getModifiedItems()
-	{
-		Collection<ModifiedItem> modifiedItems = subversion.getModifiedItems();
-		for (ModifiedItem modifiedItem : modifiedItems)
-		{
-			items.stream()
-					.filter(modifiedItem::isSamePath)
-					.findAny()
-					.ifPresent(item ->
-					{
-						modifiedItem.setDoCommit(item.isDoCommit());
-						modifiedItem.setReplication(item.getReplication());
-					});
-		}
-		return modifiedItems;
-	}
-
 	private Map<KeyCode, Runnable> keyMappings()
 	{
 		Map<KeyCode, Runnable> keyMappings = new HashMap<>();
-		keyMappings.put(KeyCode.F5, this::refresh);
+		keyMappings.put(KeyCode.F5, this::refreshChanges);
 		keyMappings.put(KeyCode.SPACE, this::changeDoCommit);
 		keyMappings.put(KeyCode.ENTER, this::compare);
+		keyMappings.put(KeyCode.F6, () -> commitView.setGrouped(!commitView.isGrouped()));
 		return keyMappings;
 	}
 }
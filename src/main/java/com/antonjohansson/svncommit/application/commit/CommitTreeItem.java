@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.application.commit;
+
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javafx.collections.ObservableList;
+import javafx.scene.control.TreeItem;
+
+/**
+ * A node in the grouped commit view, identified by its path.
+ * <p>
+ * The children of a node are created from the {@link PathTrie} when they
+ * are first requested, which is when the node is expanded. When the trie
+ * changes, the loaded children are updated in place, so that selection and
+ * scroll position are kept.
+ *
+ * @author Anton Johansson
+ */
+class CommitTreeItem extends TreeItem<String>
+{
+	private final PathTrie trie;
+	private final Set<String> expandedPaths;
+	private boolean loaded;
+
+	/**
+	 * Constructs a new {@link CommitTreeItem}.
+	 *
+	 * @param trie The trie that contains the items.
+	 * @param path The path of the node.
+	 * @param expandedPaths The paths of the nodes that are expanded, which is kept up to date.
+	 */
+	CommitTreeItem(PathTrie trie, String path, Set<String> expandedPaths)
+	{
+		super(path);
+		this.trie = trie;
+		this.expandedPaths = expandedPaths;
+
+		setExpanded(expandedPaths.contains(path));
+		expandedProperty().addListener((observable, wasExpanded, expanded) ->
+		{
+			if (expanded)
+			{
+				expandedPaths.add(path);
+			}
+			else
+			{
+				expandedPaths.remove(path);
+			}
+		});
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean isLeaf()
+	{
+		return !trie.hasChildren(getValue());
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public ObservableList<TreeItem<String>> getChildren()
+	{
+		if (!loaded)
+		{
+			loaded = true;
+			List<CommitTreeItem> children = trie.children(getValue())
+					.stream()
+					.map(path -> new CommitTreeItem(trie, path, expandedPaths))
+					.collect(toList());
+
+			super.getChildren().setAll(children);
+		}
+		return super.getChildren();
+	}
+
+	/**
+	 * Updates the children of this node from the trie, and then the children
+	 * of the loaded nodes below it that are affected. Children that are still
+	 * in the trie are kept, and new ones are inserted in order.
+	 *
+	 * @param paths The paths that changed, including all of their parent directories.
+	 */
+	void update(Set<String> paths)
+	{
+		if (!loaded)
+		{
+			return;
+		}
+
+		List<String> current = trie.children(getValue());
+		Set<String> wanted = new HashSet<>(current);
+		ObservableList<TreeItem<String>> children = super.getChildren();
+		children.removeIf(child -> !wanted.contains(child.getValue()));
+
+		int index = 0;
+		int next = 0;
+		while (next < current.size())
+		{
+			if (index < children.size() && children.get(index).getValue().equals(current.get(next)))
+			{
+				index++;
+				next++;
+				continue;
+			}
+
+			// New children are inserted a run at a time, to keep the number of change events down
+			List<CommitTreeItem> run = new ArrayList<>();
+			while (next < current.size() && (index == children.size() || !children.get(index).getValue().equals(current.get(next))))
+			{
+				run.add(new CommitTreeItem(trie, current.get(next++), expandedPaths));
+			}
+			children.addAll(index, run);
+			index += run.size();
+		}
+
+		for (TreeItem<String> child : children)
+		{
+			if (paths.contains(child.getValue()))
+			{
+				((CommitTreeItem) child).update(paths);
+			}
+		}
+	}
+}
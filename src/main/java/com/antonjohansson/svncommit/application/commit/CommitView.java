@@ -20,32 +20,52 @@ import com.antonjohansson.svncommit.core.domain.DbUpdateLocation;
 import com.antonjohansson.svncommit.core.domain.FileStatus;
 import com.antonjohansson.svncommit.core.domain.ModifiedItem;
 import com.antonjohansson.svncommit.core.view.AbstractView;
+import com.antonjohansson.svncommit.core.view.Batcher;
 import com.antonjohansson.svncommit.core.view.View;
 
 import static java.lang.System.lineSeparator;
+import static java.util.Collections.newSetFromMap;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.stream.Collectors.toList;
 import static javafx.application.Platform.runLater;
-import static javafx.collections.FXCollections.observableArrayList;
 import static javafx.scene.control.SelectionMode.MULTIPLE;
 import static javafx.scene.paint.Color.LIGHTGRAY;
 
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.util.stream.Stream;
 
+import org.apache.commons.io.FilenameUtils;
+
 import com.google.inject.Provider;
 
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.SortedList;
 import javafx.event.EventHandler;
 import javafx.fxml.FXML;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
-import javafx.scene.control.TableRow;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
+import javafx.scene.control.TreeTableCell;
+import javafx.scene.control.TreeTableColumn;
+import javafx.scene.control.TreeTableView;
 import javafx.scene.control.cell.CheckBoxTableCell;
 import javafx.scene.control.cell.ComboBoxTableCell;
 import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseEvent;
 import javafx.util.StringConverter;
 
 /**
@@ -60,8 +80,19 @@ public class CommitView extends AbstractView
 	private static final double REPLICATION_WIDTH = 160;
 	private static final int OFFSET = 16;
 
-	private final ObservableList<ModifiedItem> items;
+	private final ItemList items;
+	private final ObservableList<ModifiedItem> matchedItems = FXCollections.observableArrayList();
+	private final TrigramIndex index = new TrigramIndex();
+	private final ExecutorService filterService = newSingleThreadExecutor(CommitView::filterThread);
+	private final AtomicLong filterGeneration = new AtomicLong();
+	private final PathTrie tree = new PathTrie(true);
+	private final Set<String> expandedDirectories = new HashSet<>();
+	private CommitTreeItem treeRoot;
+	private SortedList<ModifiedItem> sortedItems;
+	private SortedList<ModifiedItem> sortedMatches;
+	@FXML private TextField filter;
 	@FXML private TableView<ModifiedItem> tableView;
+	@FXML private TreeTableView<String> treeTableView;
 	@FXML private TextArea commitMessage;
 	@FXML private TextField activityID;
 	private TableColumn<ModifiedItem, DbUpdateLocation> replicationColumn;
@@ -72,7 +103,7 @@ public class CommitView extends AbstractView
 	 */
 	public CommitView()
 	{
-		items = observableArrayList();
+		items = new ItemList();
 	}
 
 	/**
@@ -86,13 +117,52 @@ public class CommitView extends AbstractView
 	}
 
 	/**
-	 * Sets the modified items in the commit view.
+	 * Applies the given changes to the modified items in the commit view.
+	 * <p>
+	 * Only the rows of items that were added, removed or changed are updated.
+	 *
+	 * @param changes The changes to apply.
+	 */
+	void applyChanges(ChangeSet changes)
+	{
+		runLater(() ->
+		{
+			items.apply(changes);
+			index.apply(changes);
+			tree.apply(changes);
+			removeStaleMatches(changes);
+			refreshTree(Stream.of(changes.getRemoved(), changes.getChanged().values(), changes.getAdded()).flatMap(Collection::stream));
+			refreshFilter();
+		});
+	}
+
+	/**
+	 * Replaces the modified items in the commit view with items that are read on a background thread.
+	 * <p>
+	 * The table is cleared, and the items that are passed to the returned batcher are added in batches.
 	 *
-	 * @param items The items to set.
+	 * @param onProgress The consumer that accepts the number of items in the table after each batch, on the JavaFX application thread.
+	 * @return Returns the batcher that accepts the items.
 	 */
-	public void setItems(Collection<ModifiedItem> items)
+	public Batcher<ModifiedItem> streamItems(IntConsumer onProgress)
 	{
-		runLater(() -> this.items.setAll(items));
+		runLater(() ->
+		{
+			items.forEach(tree::remove);
+			refreshTree(items.stream());
+			items.clear();
+			matchedItems.clear();
+			index.clear();
+		});
+		return new Batcher<>(batch ->
+		{
+			items.addAll(batch);
+			batch.forEach(index::put);
+			batch.forEach(tree::put);
+			refreshTree(batch.stream());
+			refreshFilter();
+			onProgress.accept(items.size());
+		});
 	}
 
 	/**
@@ -102,9 +172,41 @@ public class CommitView extends AbstractView
 	 */
 	public Stream<ModifiedItem> selectedItems()
 	{
+		if (isGrouped())
+		{
+			return treeTableView.getSelectionModel()
+					.getSelectedItems()
+					.stream()
+					.filter(Objects::nonNull)
+					.map(item -> tree.get(item.getValue()))
+					.filter(Objects::nonNull);
+		}
 		return tableView.getSelectionModel().getSelectedItems().stream();
 	}
 
+	/**
+	 * Sets whether or not the items should be grouped by directory.
+	 *
+	 * @param grouped Whether or not the items should be grouped.
+	 */
+	public void setGrouped(boolean grouped)
+	{
+		tableView.setVisible(!grouped);
+		tableView.setManaged(!grouped);
+		treeTableView.setVisible(grouped);
+		treeTableView.setManaged(grouped);
+	}
+
+	/**
+	 * Gets whether or not the items are grouped by directory.
+	 *
+	 * @return Returns {@code true} if the items are grouped.
+	 */
+	public boolean isGrouped()
+	{
+		return treeTableView.isVisible();
+	}
+
 	/**
 	 * Sets the visibility of the replication columns.
 	 *
@@ -142,6 +244,7 @@ public class CommitView extends AbstractView
 	{
 		getParent().setOnKeyPressed(eventHandler);
 		tableView.setOnKeyPressed(eventHandler);
+		treeTableView.setOnKeyPressed(eventHandler);
 	}
 
 	/**
@@ -151,28 +254,36 @@ public class CommitView extends AbstractView
 	 */
 	public void setOnMouseDoubleClicked(Runnable runnable)
 	{
-		tableView.setOnMouseClicked(event ->
+		EventHandler<MouseEvent> handler = event ->
 		{
 			if (event.getClickCount() == 2)
 			{
 				runnable.run();
 			}
-		});
+		};
+		tableView.setOnMouseClicked(handler);
+		treeTableView.setOnMouseClicked(handler);
 	}
 
 	/**
 	 * Initializes the view.
 	 */
-	public void initialize(Provider<CommitContextMenu> contextMenuProvider, Runnable refreshCommand)
+	public void initialize(Provider<CommitContextMenu> contextMenuProvider, Consumer<Collection<ModifiedItem>> refreshCommand)
 	{
 		initializeTableView();
-		initializeTableViewContextMenu(contextMenuProvider, refreshCommand);
+		initializeTreeTableView();
+		initializeContextMenu(contextMenuProvider, refreshCommand);
+		filter.textProperty().addListener((observable, oldText, text) -> refreshFilter());
 	}
 
 	private void initializeTableView()
 	{
 		tableView.getSelectionModel().setSelectionMode(MULTIPLE);
-		tableView.setItems(items);
+		sortedItems = new SortedList<>(items);
+		sortedItems.comparatorProperty().bind(tableView.comparatorProperty());
+		sortedMatches = new SortedList<>(matchedItems);
+		sortedMatches.comparatorProperty().bind(tableView.comparatorProperty());
+		tableView.setItems(sortedItems);
 
 		TableColumn<ModifiedItem, Boolean> doCommit = new TableColumn<>("");
 		doCommit.setCellValueFactory(p -> p.getValue().doCommitProperty());
@@ -211,25 +322,216 @@ public class CommitView extends AbstractView
 		tableView.getColumns().add(replicationColumn);
 	}
 
-	private void initializeTableViewContextMenu(Provider<CommitContextMenu> provider, Runnable refreshCommand)
+	private void initializeTreeTableView()
+	{
+		treeTableView.getSelectionModel().setSelectionMode(MULTIPLE);
+
+		TreeTableColumn<String, String> doCommit = new TreeTableColumn<>("");
+		doCommit.setCellValueFactory(p -> p.getValue().valueProperty());
+		doCommit.setCellFactory(c -> new DoCommitTreeCell());
+		doCommit.setPrefWidth(DO_COMMIT_WIDTH);
+		doCommit.setResizable(false);
+		doCommit.setSortable(false);
+		treeTableView.getColumns().add(doCommit);
+
+		TreeTableColumn<String, String> status = new TreeTableColumn<>("Status");
+		status.setCellValueFactory(p -> new ReadOnlyStringWrapper(statusText(p.getValue().getValue())));
+		status.setPrefWidth(STATUS_WIDTH * 2);
+		status.setSortable(false);
+		treeTableView.getColumns().add(status);
+
+		TreeTableColumn<String, String> name = new TreeTableColumn<>("Path");
+		name.setCellValueFactory(p -> new ReadOnlyStringWrapper(FilenameUtils.getName(p.getValue().getValue())));
+		name.prefWidthProperty().bind(treeTableView.widthProperty().subtract(DO_COMMIT_WIDTH + STATUS_WIDTH * 2 + OFFSET));
+		name.setSortable(false);
+		treeTableView.getColumns().add(name);
+
+		expandedDirectories.add(".");
+		treeRoot = new CommitTreeItem(tree, ".", expandedDirectories);
+		treeTableView.setRoot(treeRoot);
+	}
+
+	/**
+	 * Updates the nodes of the grouped view that contain any of the given
+	 * items, and redraws the visible rows once, since the counts of the
+	 * directories above the items have changed.
+	 */
+	private void refreshTree(Stream<ModifiedItem> changedItems)
 	{
-		tableView.setRowFactory(tableView ->
+		Set<String> paths = new HashSet<>();
+		changedItems.forEach(item ->
 		{
-			CommitContextMenu contextMenu = provider.get();
-			TableRow<ModifiedItem> row = new TableRow<>();
-			row.setContextMenu(contextMenu.getContextMenu());
-			row.itemProperty().addListener(e -> configureMenuItem(row, contextMenu, refreshCommand));
-			return row;
+			String path = item.getFileName();
+			while (paths.add(path) && !".".equals(path))
+			{
+				int separator = path.lastIndexOf('/');
+				path = separator == -1 ? "." : path.substring(0, separator);
+			}
 		});
+		if (!paths.isEmpty())
+		{
+			treeRoot.update(paths);
+			treeTableView.refresh();
+		}
 	}
 
-	private void configureMenuItem(TableRow<ModifiedItem> row, CommitContextMenu contextMenu, Runnable refreshCommand)
+	/**
+	 * Filters the table by the text of the filter box. The search runs on a
+	 * background thread, and searches that are superseded by a newer one are
+	 * cancelled. The matches are then shown as they are, in the order of the
+	 * index, so only they are sorted, and the other items are not looked at.
+	 */
+	private void refreshFilter()
 	{
-		ModifiedItem item = row.getItem();
-		contextMenu.getMenuItems()
-				.stream()
-				.filter(menuItem -> item != null)
-				.forEach(menuItem -> menuItem.configure(item, refreshCommand));
+		long generation = filterGeneration.incrementAndGet();
+		String text = filter.getText().trim();
+		if (text.isEmpty())
+		{
+			matchedItems.clear();
+			tableView.setItems(sortedItems);
+			return;
+		}
+
+		filterService.submit(() ->
+		{
+			List<ModifiedItem> matches = index.search(text, () -> filterGeneration.get() != generation);
+			if (matches != null)
+			{
+				runLater(() ->
+				{
+					if (filterGeneration.get() != generation)
+					{
+						return;
+					}
+					if (matches.size() == items.size())
+					{
+						matchedItems.clear();
+						tableView.setItems(sortedItems);
+					}
+					else
+					{
+						matchedItems.setAll(matches);
+						tableView.setItems(sortedMatches);
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Hides matches that were removed or replaced, until the search that
+	 * follows the changes has finished.
+	 */
+	private void removeStaleMatches(ChangeSet changes)
+	{
+		if (matchedItems.isEmpty())
+		{
+			return;
+		}
+
+		Set<ModifiedItem> stale = newSetFromMap(new IdentityHashMap<>());
+		stale.addAll(changes.getRemoved());
+		stale.addAll(changes.getChanged().keySet());
+		if (!stale.isEmpty())
+		{
+			matchedItems.removeIf(stale::contains);
+		}
+	}
+
+	private static Thread filterThread(Runnable runnable)
+	{
+		Thread thread = new Thread(runnable, "filter");
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	private String statusText(String path)
+	{
+		if (!tree.hasChildren(path))
+		{
+			ModifiedItem item = tree.get(path);
+			return item == null ? "" : item.getStatus().getCaption();
+		}
+
+		StringBuilder text = new StringBuilder();
+		for (FileStatus status : FileStatus.values())
+		{
+			int count = tree.count(path, status);
+			if (count > 0)
+			{
+				text.append(text.length() == 0 ? "" : ", ")
+					.append(count)
+					.append(' ')
+					.append(status.getCaption());
+			}
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Sets 'Do commit' of all commitable items at or below the given path,
+	 * and then redraws the visible rows once.
+	 */
+	private void setDoCommit(String path, boolean doCommit)
+	{
+		tree.setDoCommit(path, doCommit);
+		treeTableView.refresh();
+	}
+
+	private void initializeContextMenu(Provider<CommitContextMenu> provider, Consumer<Collection<ModifiedItem>> refreshCommand)
+	{
+		// The menu items act on the whole selection, so they are configured when the menu is shown
+		CommitContextMenu contextMenu = provider.get();
+		contextMenu.getContextMenu().setOnShowing(event ->
+		{
+			List<ModifiedItem> selectedItems = selectedItems().collect(toList());
+			contextMenu.getMenuItems().forEach(menuItem -> menuItem.configure(selectedItems, refreshCommand));
+		});
+		tableView.setContextMenu(contextMenu.getContextMenu());
+		treeTableView.setContextMenu(contextMenu.getContextMenu());
+	}
+
+	/**
+	 * Cell used for the 'Do commit' column of the grouped view. Directories
+	 * show whether all, some or none of the commitable items below them will
+	 * be committed.
+	 *
+	 * @author Anton Johansson
+	 */
+	private class DoCommitTreeCell extends TreeTableCell<String, String>
+	{
+		private final CheckBox checkBox = new CheckBox();
+
+		private DoCommitTreeCell()
+		{
+			checkBox.setOnAction(event ->
+			{
+				String path = getItem();
+				if (path != null)
+				{
+					setDoCommit(path, checkBox.isSelected());
+				}
+			});
+		}
+
+		@Override
+		protected void updateItem(String path, boolean empty)
+		{
+			super.updateItem(path, empty);
+			if (empty || path == null)
+			{
+				setGraphic(null);
+				return;
+			}
+
+			int commitable = tree.countCommitable(path);
+			int marked = tree.countDoCommit(path);
+
+			checkBox.setDisable(commitable == 0);
+			checkBox.setIndeterminate(marked > 0 && marked < commitable);
+			checkBox.setSelected(commitable > 0 && marked == commitable);
+			setGraphic(checkBox);
+		}
 	}
 
 	/**
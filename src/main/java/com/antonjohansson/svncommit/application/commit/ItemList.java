@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.application.commit;
+
+import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+
+import static java.util.Collections.newSetFromMap;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javafx.collections.ModifiableObservableListBase;
+
+/**
+ * The observable list of items in the commit view.
+ * <p>
+ * A {@link ChangeSet} is applied as one change, that only contains the
+ * items that were added, removed or replaced, so that the table keeps the
+ * rest of its rows, its selection and its scroll position.
+ *
+ * @author Anton Johansson
+ */
+class ItemList extends ModifiableObservableListBase<ModifiedItem>
+{
+	private List<ModifiedItem> items = new ArrayList<>();
+
+	/**
+	 * Applies the given changes to the list, in one change.
+	 *
+	 * @param changes The changes to apply.
+	 */
+	void apply(ChangeSet changes)
+	{
+		if (changes.isEmpty())
+		{
+			return;
+		}
+
+		Set<ModifiedItem> removed = newSetFromMap(new IdentityHashMap<>());
+		removed.addAll(changes.getRemoved());
+		Map<ModifiedItem, ModifiedItem> changed = changes.getChanged();
+
+		beginChange();
+		try
+		{
+			List<ModifiedItem> result = new ArrayList<>(items.size() + changes.getAdded().size());
+			for (ModifiedItem item : items)
+			{
+				if (removed.contains(item))
+				{
+					nextRemove(result.size(), item);
+					continue;
+				}
+
+				ModifiedItem replacement = changed.get(item);
+				if (replacement != null)
+				{
+					nextSet(result.size(), item);
+					result.add(replacement);
+				}
+				else
+				{
+					result.add(item);
+				}
+			}
+
+			int from = result.size();
+			result.addAll(changes.getAdded());
+			if (result.size() > from)
+			{
+				nextAdd(from, result.size());
+			}
+			items = result;
+		}
+		finally
+		{
+			endChange();
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void clear()
+	{
+		if (items.isEmpty())
+		{
+			return;
+		}
+
+		beginChange();
+		try
+		{
+			nextRemove(0, items);
+			items = new ArrayList<>();
+		}
+		finally
+		{
+			endChange();
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public ModifiedItem get(int index)
+	{
+		return items.get(index);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public int size()
+	{
+		return items.size();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected void doAdd(int index, ModifiedItem element)
+	{
+		items.add(index, element);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected ModifiedItem doSet(int index, ModifiedItem element)
+	{
+		return items.set(index, element);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected ModifiedItem doRemove(int index)
+	{
+		return items.remove(index);
+	}
+}
@@ -0,0 +1,434 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.application.commit;
+
+import com.antonjohansson.svncommit.core.domain.FileStatus;
+import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+
+import static java.util.Collections.newSetFromMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indexes modified items by the segments of their paths.
+ * <p>
+ * Each directory segment is stored once, and every directory keeps the
+ * number of items below it by {@link FileStatus}, and optionally the number of
+ * commitable items below it and how many of them will be committed. Lookups,
+ * insertions and removals are proportional to the depth of the path. Items
+ * are expected to be replaced rather than having their status changed while
+ * indexed, but 'Do commit' can be followed as it changes, through a plain
+ * listener that does not create the JavaFX property of the item.
+ *
+ * @author Anton Johansson
+ */
+class PathTrie
+{
+	private static final String ROOT = ".";
+
+	private final Node root = new Node(null, ROOT);
+	private final boolean countDoCommit;
+	private boolean settingDoCommit;
+
+	/**
+	 * Constructs a new {@link PathTrie} that only counts items by status.
+	 */
+	PathTrie()
+	{
+		this(false);
+	}
+
+	/**
+	 * Constructs a new {@link PathTrie}.
+	 *
+	 * @param countDoCommit Whether or not to count commitable items and follow their 'Do commit', which must then only change on the thread that updates the trie.
+	 */
+	PathTrie(boolean countDoCommit)
+	{
+		this.countDoCommit = countDoCommit;
+	}
+
+	/**
+	 * Adds the given item, replacing any item with the same path.
+	 *
+	 * @param item The item to add.
+	 */
+	void put(ModifiedItem item)
+	{
+		Node node = root;
+		for (String segment : segments(item.getFileName()))
+		{
+			Node parent = node;
+			node = node.children.computeIfAbsent(segment, s -> new Node(parent, s));
+		}
+
+		if (node.item != null)
+		{
+			detach(node);
+		}
+		node.item = item;
+		attach(node);
+	}
+
+	/**
+	 * Removes the given item, if it is indexed.
+	 *
+	 * @param item The item to remove.
+	 */
+	void remove(ModifiedItem item)
+	{
+		Node node = find(item.getFileName());
+		if (node == null || node.item != item)
+		{
+			return;
+		}
+
+		detach(node);
+		node.item = null;
+		while (node.parent != null && node.item == null && node.children.isEmpty())
+		{
+			node.parent.children.remove(node.segment);
+			node = node.parent;
+		}
+	}
+
+	/**
+	 * Applies the given changes to the index.
+	 *
+	 * @param changes The changes to apply.
+	 */
+	void apply(ChangeSet changes)
+	{
+		changes.getRemoved().forEach(this::remove);
+		changes.getChanged().values().forEach(this::put);
+		changes.getAdded().forEach(this::put);
+	}
+
+	/**
+	 * Gets the item with the given path.
+	 *
+	 * @param path The path of the item.
+	 * @return Returns the item, or {@code null} if there is no item with the path.
+	 */
+	ModifiedItem get(String path)
+	{
+		Node node = find(path);
+		return node == null ? null : node.item;
+	}
+
+	/**
+	 * Gets the items that are the given directories or directly within them.
+	 *
+	 * @param directories The directories, where {@code "."} is the root.
+	 * @return Returns the items, in no particular order.
+	 * @see ModifiedItem#isWithin(Collection)
+	 */
+	List<ModifiedItem> within(Collection<String> directories)
+	{
+		Set<ModifiedItem> items = newSetFromMap(new IdentityHashMap<>());
+		for (String directory : directories)
+		{
+			Node node = find(directory);
+			if (node == null)
+			{
+				continue;
+			}
+			if (node.item != null)
+			{
+				items.add(node.item);
+			}
+			for (Node child : node.children.values())
+			{
+				if (child.item != null)
+				{
+					items.add(child.item);
+				}
+			}
+		}
+		return new ArrayList<>(items);
+	}
+
+	/**
+	 * Gets all items at or below the given directory.
+	 *
+	 * @param directory The directory, where {@code "."} is the root.
+	 * @return Returns the items, in no particular order.
+	 */
+	List<ModifiedItem> under(String directory)
+	{
+		List<ModifiedItem> items = new ArrayList<>();
+		Node start = find(directory);
+		if (start == null)
+		{
+			return items;
+		}
+
+		Deque<Node> pending = new ArrayDeque<>();
+		pending.push(start);
+		while (!pending.isEmpty())
+		{
+			Node node = pending.pop();
+			if (node.item != null)
+			{
+				items.add(node.item);
+			}
+			node.children.values().forEach(pending::push);
+		}
+		return items;
+	}
+
+	/**
+	 * Gets the paths of the direct children of the given directory, sorted by name.
+	 * Children are either items, or directories that contain items.
+	 *
+	 * @param directory The directory, where {@code "."} is the root.
+	 * @return Returns the paths of the children.
+	 */
+	List<String> children(String directory)
+	{
+		List<String> children = new ArrayList<>();
+		Node node = find(directory);
+		if (node == null)
+		{
+			return children;
+		}
+
+		for (String segment : node.children.keySet())
+		{
+			children.add(ROOT.equals(directory) ? segment : directory + "/" + segment);
+		}
+		children.sort(null);
+		return children;
+	}
+
+	/**
+	 * Gets whether or not the given path has any children.
+	 *
+	 * @param path The path, where {@code "."} is the root.
+	 * @return Returns {@code true} if there are items below the path.
+	 */
+	boolean hasChildren(String path)
+	{
+		Node node = find(path);
+		return node != null && !node.children.isEmpty();
+	}
+
+	/**
+	 * Gets the number of items at or below the given directory that have the given status.
+	 *
+	 * @param directory The directory, where {@code "."} is the root.
+	 * @param status The status to count.
+	 * @return Returns the number of items.
+	 */
+	int count(String directory, FileStatus status)
+	{
+		Node node = find(directory);
+		return node == null ? 0 : node.counts[status.ordinal()];
+	}
+
+	/**
+	 * Gets the number of items at or below the given directory.
+	 *
+	 * @param directory The directory, where {@code "."} is the root.
+	 * @return Returns the number of items.
+	 */
+	int count(String directory)
+	{
+		Node node = find(directory);
+		return node == null ? 0 : node.total;
+	}
+
+	/**
+	 * Gets the number of commitable items at or below the given directory.
+	 *
+	 * @param directory The directory, where {@code "."} is the root.
+	 * @return Returns the number of commitable items.
+	 */
+	int countCommitable(String directory)
+	{
+		Node node = find(directory);
+		return node == null ? 0 : node.commitable;
+	}
+
+	/**
+	 * Gets the number of commitable items at or below the given directory that will be committed.
+	 *
+	 * @param directory The directory, where {@code "."} is the root.
+	 * @return Returns the number of items that will be committed.
+	 */
+	int countDoCommit(String directory)
+	{
+		Node node = find(directory);
+		return node == null ? 0 : node.doCommit;
+	}
+
+	/**
+	 * Sets 'Do commit' of all commitable items at or below the given directory.
+	 * Directories where all items already have the given value are skipped.
+	 * The counts are updated once per directory, rather than once per item.
+	 *
+	 * @param directory The directory, where {@code "."} is the root.
+	 * @param doCommit Whether or not the items should be committed.
+	 */
+	void setDoCommit(String directory, boolean doCommit)
+	{
+		Node start = find(directory);
+		if (start == null)
+		{
+			return;
+		}
+
+		int delta = (doCommit ? start.commitable : 0) - start.doCommit;
+		settingDoCommit = true;
+		try
+		{
+			Deque<Node> pending = new ArrayDeque<>();
+			pending.push(start);
+			while (!pending.isEmpty())
+			{
+				Node node = pending.pop();
+				int marked = doCommit ? node.commitable : 0;
+				if (node.doCommit == marked)
+				{
+					continue;
+				}
+				node.doCommit = marked;
+				if (node.item != null && node.item.isCommitable())
+				{
+					node.item.setDoCommit(doCommit);
+				}
+				node.children.values().forEach(pending::push);
+			}
+		}
+		finally
+		{
+			settingDoCommit = false;
+		}
+
+		for (Node current = start.parent; current != null; current = current.parent)
+		{
+			current.doCommit += delta;
+		}
+	}
+
+	private Node find(String path)
+	{
+		Node node = root;
+		for (String segment : segments(path))
+		{
+			node = node.children.get(segment);
+			if (node == null)
+			{
+				return null;
+			}
+		}
+		return node;
+	}
+
+	private void attach(Node node)
+	{
+		ModifiedItem item = node.item;
+		count(node, item.getStatus(), 1);
+		if (countDoCommit && item.isCommitable())
+		{
+			commitable(node, 1, item.isDoCommit() ? 1 : 0);
+			item.setDoCommitListener(marked ->
+			{
+				// Directory toggles update the counts themselves
+				if (!settingDoCommit)
+				{
+					commitable(node, 0, marked ? 1 : -1);
+				}
+			});
+		}
+	}
+
+	private void detach(Node node)
+	{
+		ModifiedItem item = node.item;
+		count(node, item.getStatus(), -1);
+		if (countDoCommit && item.isCommitable())
+		{
+			item.setDoCommitListener(null);
+			commitable(node, -1, item.isDoCommit() ? -1 : 0);
+		}
+	}
+
+	private static void commitable(Node node, int commitableDelta, int doCommitDelta)
+	{
+		for (Node current = node; current != null; current = current.parent)
+		{
+			current.commitable += commitableDelta;
+			current.doCommit += doCommitDelta;
+		}
+	}
+
+	private void count(Node node, FileStatus status, int delta)
+	{
+		for (Node current = node; current != null; current = current.parent)
+		{
+			current.counts[status.ordinal()] += delta;
+			current.total += delta;
+		}
+	}
+
+	private static List<String> segments(String path)
+	{
+		List<String> segments = new ArrayList<>();
+		if (ROOT.equals(path))
+		{
+			return segments;
+		}
+
+		int start = 0;
+		for (int index = path.indexOf('/'); index != -1; index = path.indexOf('/', start))
+		{
+			segments.add(path.substring(start, index));
+			start = index + 1;
+		}
+		segments.add(path.substring(start));
+		return segments;
+	}
+
+	/**
+	 * A single path segment.
+	 */
+	private static class Node
+	{
+		private final Node parent;
+		private final String segment;
+		private final Map<String, Node> children = new HashMap<>();
+		private final int[] counts = new int[FileStatus.values().length];
+		private ModifiedItem item;
+		private int total;
+		private int commitable;
+		private int doCommit;
+
+		private Node(Node parent, String segment)
+		{
+			this.parent = parent;
+			this.segment = segment;
+		}
+	}
+}
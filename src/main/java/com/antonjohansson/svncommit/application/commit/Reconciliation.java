@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.application.commit;
+
+import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reconciles newly read items with the previous items, by path.
+ * <p>
+ * Each new item takes over the choices that the user made for the
+ * previous item with the same path. When all new items have been accepted,
+ * the differences are available as a {@link ChangeSet}. All operations are
+ * performed in linear time.
+ *
+ * @author Anton Johansson
+ */
+class Reconciliation implements Consumer<ModifiedItem>
+{
+	private final Collection<ModifiedItem> previousItems;
+	private final Map<String, ModifiedItem> unseen;
+	private final List<ModifiedItem> added = new ArrayList<>();
+	private final Map<ModifiedItem, ModifiedItem> changed = new IdentityHashMap<>();
+
+	/**
+	 * Constructs a new {@link Reconciliation}.
+	 *
+	 * @param previousItems The previous items.
+	 */
+	Reconciliation(Collection<ModifiedItem> previousItems)
+	{
+		this.previousItems = previousItems;
+		this.unseen = new HashMap<>(previousItems.size() * 4 / 3 + 1);
+		for (ModifiedItem item : previousItems)
+		{
+			unseen.put(item.getFileName(), item);
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void accept(ModifiedItem item)
+	{
+		ModifiedItem previous = unseen.remove(item.getFileName());
+		if (previous == null)
+		{
+			added.add(item);
+			return;
+		}
+
+		item.setDoCommit(previous.isDoCommit());
+		item.setReplication(previous.getReplication());
+		if (!previous.equals(item))
+		{
+			changed.put(previous, item);
+		}
+	}
+
+	/**
+	 * Completes the reconciliation. Previous items that have not been accepted are considered removed.
+	 *
+	 * @return Returns the changes.
+	 */
+	ChangeSet complete()
+	{
+		List<ModifiedItem> removed = new ArrayList<>();
+		for (ModifiedItem item : previousItems)
+		{
+			if (unseen.get(item.getFileName()) == item)
+			{
+				removed.add(item);
+			}
+		}
+		return new ChangeSet(added, removed, changed);
+	}
+}
@@ -0,0 +1,332 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.application.commit;
+
+import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Indexes {@link ModifiedItem modified items} by the trigrams of their paths,
+ * so that the items whose paths contain a fragment can be found without
+ * looking at every item.
+ * <p>
+ * Trigrams that occur in a large part of the items are not worth keeping,
+ * since they do not narrow a search down. Their postings are dropped, and
+ * searches that only consist of such trigrams scan all items instead. A
+ * saturated trigram stays saturated when items are removed, until the index
+ * is compacted or cleared, which rebuilds all postings from the live items.
+ * <p>
+ * The index is updated on the JavaFX application thread and searched on a
+ * background thread. Updates never change the part of the arrays that a
+ * search has already seen: items are only appended, removed items are only
+ * cleared, and growing, compacting or clearing allocates new arrays. A search
+ * therefore only holds the lock while it picks its candidates, and then
+ * scans them without it, so that updates never wait for a search.
+ *
+ * @author Anton Johansson
+ */
+class TrigramIndex
+{
+	private static final int SATURATION_LIMIT = 4096;
+	private static final int SATURATION_RATIO = 8;
+	private static final int COMPACTION_LIMIT = 1024;
+	private static final int CANCELLATION_INTERVAL = 4096;
+	private static final Postings SATURATED = new Postings();
+
+	private final Map<ModifiedItem, Integer> ids = new IdentityHashMap<>();
+	private final PostingsTable postings = new PostingsTable();
+	private ModifiedItem[] items = new ModifiedItem[16];
+	private String[] paths = new String[16];
+	private int size;
+	private int removed;
+
+	/**
+	 * Adds the given item to the index.
+	 *
+	 * @param item The item to add.
+	 */
+	synchronized void put(ModifiedItem item)
+	{
+		if (ids.containsKey(item))
+		{
+			return;
+		}
+		if (size == items.length)
+		{
+			items = Arrays.copyOf(items, size * 2);
+			paths = Arrays.copyOf(paths, size * 2);
+		}
+
+		int id = size++;
+		String path = item.getFileName().toLowerCase();
+		items[id] = item;
+		paths[id] = path;
+		ids.put(item, id);
+
+		int limit = Math.max(SATURATION_LIMIT, ids.size() / SATURATION_RATIO);
+		for (int i = 0; i + 3 <= path.length(); i++)
+		{
+			Postings list = postings.get(trigram(path, i), true);
+			if (list != SATURATED)
+			{
+				list.add(id);
+				if (list.size > limit)
+				{
+					postings.saturate(trigram(path, i));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes the given item from the index.
+	 *
+	 * @param item The item to remove.
+	 */
+	synchronized void remove(ModifiedItem item)
+	{
+		Integer id = ids.remove(item);
+		if (id == null)
+		{
+			return;
+		}
+
+		// Postings of removed items are left behind, and skipped when searching
+		items[id] = null;
+		paths[id] = null;
+		removed++;
+		if (removed > COMPACTION_LIMIT && removed > ids.size())
+		{
+			compact();
+		}
+	}
+
+	/**
+	 * Applies the given changes to the index.
+	 *
+	 * @param changes The changes to apply.
+	 */
+	synchronized void apply(ChangeSet changes)
+	{
+		changes.getRemoved().forEach(this::remove);
+		changes.getChanged().forEach((previous, replacement) ->
+		{
+			remove(previous);
+			put(replacement);
+		});
+		changes.getAdded().forEach(this::put);
+	}
+
+	/**
+	 * Removes all items from the index.
+	 */
+	synchronized void clear()
+	{
+		ids.clear();
+		postings.clear();
+		items = new ModifiedItem[16];
+		paths = new String[16];
+		size = 0;
+		removed = 0;
+	}
+
+	/**
+	 * Finds the items whose paths contain the given fragment, ignoring case.
+	 *
+	 * @param fragment The fragment to search for.
+	 * @param cancelled Whether or not the search has been cancelled.
+	 * @return Returns the matching items, in the order they were added, or {@code null} if the search was cancelled.
+	 */
+	List<ModifiedItem> search(String fragment, BooleanSupplier cancelled)
+	{
+		String query = fragment.toLowerCase();
+		ModifiedItem[] items;
+		String[] paths;
+		int[] candidates = null;
+		int count;
+		synchronized (this)
+		{
+			Postings smallest = null;
+			for (int i = 0; i + 3 <= query.length(); i++)
+			{
+				Postings list = postings.get(trigram(query, i), false);
+				if (list == null)
+				{
+					return new ArrayList<>();
+				}
+				if (list == SATURATED)
+				{
+					continue;
+				}
+				if (smallest == null || list.size < smallest.size)
+				{
+					smallest = list;
+				}
+			}
+
+			items = this.items;
+			paths = this.paths;
+			count = smallest == null ? size : smallest.size;
+			candidates = smallest == null ? null : smallest.ids;
+		}
+
+		List<ModifiedItem> matches = new ArrayList<>();
+		for (int i = 0; i < count; i++)
+		{
+			if (i % CANCELLATION_INTERVAL == 0 && cancelled.getAsBoolean())
+			{
+				return null;
+			}
+
+			// An item that is removed during the search is either seen or not, both of which are fine
+			int id = candidates == null ? i : candidates[i];
+			String path = paths[id];
+			ModifiedItem item = items[id];
+			if (path != null && item != null && path.contains(query))
+			{
+				matches.add(item);
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * Gets the number of items in the index.
+	 *
+	 * @return Returns the number of items.
+	 */
+	synchronized int size()
+	{
+		return ids.size();
+	}
+
+	private void compact()
+	{
+		ModifiedItem[] live = Arrays.stream(items, 0, size)
+				.filter(item -> item != null)
+				.toArray(ModifiedItem[]::new);
+
+		clear();
+		for (ModifiedItem item : live)
+		{
+			put(item);
+		}
+	}
+
+	private static long trigram(String text, int index)
+	{
+		return ((long) text.charAt(index) << 32) | ((long) text.charAt(index + 1) << 16) | text.charAt(index + 2);
+	}
+
+	/**
+	 * Maps trigrams to their postings, using open addressing so that trigrams
+	 * are not boxed.
+	 */
+	private static class PostingsTable
+	{
+		private long[] keys = new long[1024];
+		private Postings[] values = new Postings[1024];
+		private int size;
+
+		private Postings get(long trigram, boolean create)
+		{
+			int slot = slot(trigram);
+			if (values[slot] != null || !create)
+			{
+				return values[slot];
+			}
+
+			if ((size + 1) * 2 > keys.length)
+			{
+				resize();
+				slot = slot(trigram);
+			}
+			size++;
+			keys[slot] = trigram;
+			values[slot] = new Postings();
+			return values[slot];
+		}
+
+		private void saturate(long trigram)
+		{
+			values[slot(trigram)] = SATURATED;
+		}
+
+		private void clear()
+		{
+			keys = new long[1024];
+			values = new Postings[1024];
+			size = 0;
+		}
+
+		private void resize()
+		{
+			long[] oldKeys = keys;
+			Postings[] oldValues = values;
+			keys = new long[oldKeys.length * 2];
+			values = new Postings[oldValues.length * 2];
+			for (int i = 0; i < oldKeys.length; i++)
+			{
+				if (oldValues[i] != null)
+				{
+					int slot = slot(oldKeys[i]);
+					keys[slot] = oldKeys[i];
+					values[slot] = oldValues[i];
+				}
+			}
+		}
+
+		private int slot(long trigram)
+		{
+			int mask = keys.length - 1;
+			int slot = (int) (trigram * 0x9E3779B97F4A7C15L >>> 40) & mask;
+			while (values[slot] != null && keys[slot] != trigram)
+			{
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+	}
+
+	/**
+	 * The identifiers of the items that contain a trigram, in the order they were added.
+	 */
+	private static class Postings
+	{
+		private int[] ids = new int[4];
+		private int size;
+
+		private void add(int id)
+		{
+			// A trigram that occurs twice in a path was added by the same item last
+			if (size > 0 && ids[size - 1] == id)
+			{
+				return;
+			}
+			if (size == ids.length)
+			{
+				ids = Arrays.copyOf(ids, size * 2);
+			}
+			ids[size++] = id;
+		}
+	}
+}
@@ -16,11 +16,16 @@
 package com.antonjohansson.svncommit.application.commit.context;
 
 import com.antonjohansson.svncommit.core.domain.ModifiedItem;
-import com.antonjohansson.svncommit.core.utils.Subversion;
+import com.antonjohansson.svncommit.core.utils.AsyncSubversion;
 import com.antonjohansson.svncommit.core.view.AbstractRowContextMenuItem;
 
 import static com.antonjohansson.svncommit.core.domain.FileStatus.UNVERSIONED;
 
+import static java.util.stream.Collectors.toList;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 import com.google.common.base.Predicate;
 import com.google.inject.Inject;
 
@@ -31,10 +36,10 @@ import com.google.inject.Inject;
  */
 class AddMenuItem extends AbstractRowContextMenuItem<ModifiedItem>
 {
-	private final Subversion subversion;
+	private final AsyncSubversion subversion;
 
 	@Inject
-	AddMenuItem(Subversion subversion)
+	AddMenuItem(AsyncSubversion subversion)
 	{
 		super("SVN Add");
 		this.subversion = subversion;
@@ -49,10 +54,15 @@ class AddMenuItem extends AbstractRowContextMenuItem<ModifiedItem>
 
 	/** {@inheritDoc} */
 	@Override
-	protected void action(ModifiedItem item, Runnable refreshCommand)
+	protected CompletableFuture<?> action(List<ModifiedItem> items)
+	{
+		return subversion.add(items.stream().map(ModifiedItem::getFileName).collect(toList()));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected void completed(List<ModifiedItem> items)
 	{
-		subversion.add(item.getFileName());
-		item.setDoCommit(true);
-		refreshCommand.run();
+		items.forEach(item -> item.setDoCommit(true));
 	}
 }
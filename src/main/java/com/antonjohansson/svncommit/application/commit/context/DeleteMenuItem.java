@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.application.commit.context;
+
+import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+import com.antonjohansson.svncommit.core.utils.AsyncSubversion;
+import com.antonjohansson.svncommit.core.view.AbstractRowContextMenuItem;
+
+import static com.antonjohansson.svncommit.core.domain.FileStatus.MISSING;
+import static java.util.stream.Collectors.toList;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.google.common.base.Predicate;
+import com.google.inject.Inject;
+
+/**
+ * Context menu item for running an {@code svn delete} command.
+ *
+ * @author Anton Johansson
+ */
+class DeleteMenuItem extends AbstractRowContextMenuItem<ModifiedItem>
+{
+	private final AsyncSubversion subversion;
+
+	@Inject
+	DeleteMenuItem(AsyncSubversion subversion)
+	{
+		super("SVN Delete");
+		this.subversion = subversion;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected Predicate<ModifiedItem> predicate()
+	{
+		return modifiedItem -> MISSING.equals(modifiedItem.getStatus());
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected CompletableFuture<?> action(List<ModifiedItem> items)
+	{
+		return subversion.delete(items.stream().map(ModifiedItem::getFileName).collect(toList()));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected void completed(List<ModifiedItem> items)
+	{
+		items.forEach(item -> item.setDoCommit(true));
+	}
+}
@@ -21,6 +21,8 @@ import com.antonjohansson.svncommit.core.controller.Controller;
 import com.antonjohansson.svncommit.core.utils.Subversion;
 import com.antonjohansson.svncommit.core.view.ConsoleView;
 
+import static com.antonjohansson.svncommit.core.concurrent.Lane.WRITE;
+
 import com.google.inject.Inject;
 
 /**
@@ -45,6 +47,6 @@ class UpdateController extends AbstractController<ConsoleView>
 	@Override
 	public void initialize()
 	{
-		worker.submit(() -> subversion.update(view::append, view::showCompletionIcon));
+		worker.submit(WRITE, handle -> subversion.update(view::append, view::showCompletionIcon));
 	}
 }
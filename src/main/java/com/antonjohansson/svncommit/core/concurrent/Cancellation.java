@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.concurrent;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Allows an operation that runs on another thread to be cancelled, including
+ * any processes that it has started.
+ * <p>
+ * While an operation runs through {@link #run(Supplier)}, code further down
+ * the call stack, such as a shell, can register what needs to be done to stop
+ * its blocking work, for example destroying a process, with
+ * {@link #onCancel(Runnable)}. Cancelling runs those hooks and interrupts the
+ * thread.
+ *
+ * @author Anton Johansson
+ */
+public final class Cancellation
+{
+	private static final ThreadLocal<Cancellation> CURRENT = new ThreadLocal<>();
+	private static final Registration NONE = () -> {};
+
+	private final Set<Runnable> hooks = new LinkedHashSet<>();
+	private Thread thread;
+	private boolean cancelled;
+	private boolean finished;
+
+	/**
+	 * Runs the given operation on the current thread, under this cancellation.
+	 *
+	 * @param operation The operation to run.
+	 * @return Returns the result of the operation.
+	 */
+	public <R> R run(Supplier<R> operation)
+	{
+		synchronized (this)
+		{
+			if (cancelled)
+			{
+				throw new IllegalStateException("The operation is cancelled");
+			}
+			thread = Thread.currentThread();
+		}
+
+		CURRENT.set(this);
+		try
+		{
+			return operation.get();
+		}
+		finally
+		{
+			CURRENT.remove();
+			boolean interrupted;
+			synchronized (this)
+			{
+				finished = true;
+				interrupted = cancelled;
+				thread = null;
+				hooks.clear();
+			}
+			if (interrupted)
+			{
+				// The interrupt was meant for this operation only, not for the thread that ran it
+				Thread.interrupted();
+			}
+		}
+	}
+
+	/**
+	 * Cancels the operation. This has no effect if the operation is already finished.
+	 */
+	public void cancel()
+	{
+		Runnable[] toRun;
+		synchronized (this)
+		{
+			if (cancelled || finished)
+			{
+				return;
+			}
+			cancelled = true;
+			toRun = hooks.toArray(new Runnable[0]);
+			if (thread != null)
+			{
+				thread.interrupt();
+			}
+		}
+		for (Runnable hook : toRun)
+		{
+			hook.run();
+		}
+	}
+
+	/**
+	 * Gets whether or not the operation is cancelled.
+	 *
+	 * @return Returns {@code true} if the operation is cancelled.
+	 */
+	public synchronized boolean isCancelled()
+	{
+		return cancelled;
+	}
+
+	/**
+	 * Registers a hook that stops blocking work of the operation that runs on
+	 * the current thread, if that operation is cancelled. The hook is run right
+	 * away if the operation already is cancelled.
+	 *
+	 * @param hook The hook to run on cancellation.
+	 * @return Returns the registration, which must be closed when the blocking work is done.
+	 */
+	public static Registration onCancel(Runnable hook)
+	{
+		Cancellation cancellation = CURRENT.get();
+		if (cancellation == null)
+		{
+			return NONE;
+		}
+
+		synchronized (cancellation)
+		{
+			if (!cancellation.cancelled)
+			{
+				cancellation.hooks.add(hook);
+				return () ->
+				{
+					synchronized (cancellation)
+					{
+						cancellation.hooks.remove(hook);
+					}
+				};
+			}
+		}
+		hook.run();
+		return NONE;
+	}
+
+	/**
+	 * A registered cancellation hook.
+	 *
+	 * @author Anton Johansson
+	 */
+	public interface Registration extends AutoCloseable
+	{
+		/**
+		 * Removes the hook, once the blocking work that it stops is done.
+		 */
+		@Override
+		void close();
+	}
+}
@@ -15,10 +15,6 @@
  */
 package com.antonjohansson.svncommit.core.concurrent;
 
-import static java.util.concurrent.Executors.newSingleThreadExecutor;
-
-import java.util.concurrent.ExecutorService;
-
 import com.google.inject.AbstractModule;
 import com.google.inject.Singleton;
 
@@ -33,7 +29,6 @@ public class ConcurrentModule extends AbstractModule
 	@Override
 	protected void configure()
 	{
-		bind(ExecutorService.class).toInstance(newSingleThreadExecutor());
 		bind(Worker.class).to(WorkerImpl.class).in(Singleton.class);
 	}
 }
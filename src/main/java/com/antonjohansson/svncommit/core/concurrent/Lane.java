@@ -0,0 +1,35 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.concurrent;
+
+/**
+ * Defines the lanes of the {@link Worker}. Each lane runs its tasks in
+ * order, on its own thread, so that tasks in one lane never wait for tasks
+ * in another.
+ *
+ * @author Anton Johansson
+ */
+public enum Lane
+{
+	/** Short queries that the user is waiting for, such as opening a compare tool. */
+	INTERACTIVE,
+
+	/** Reading the status of the working copy. */
+	STATUS,
+
+	/** Long-running operations that write to the working copy or the repository, such as updates and commits. */
+	WRITE;
+}
@@ -0,0 +1,225 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.concurrent;
+
+import static java.lang.System.lineSeparator;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Schedules operations on the working copy.
+ * <p>
+ * Subversion lets only one writer at a time work on a working copy, while
+ * read-only operations can run alongside each other. Readers therefore run
+ * in parallel, and writers run alone. An operation that fails because the
+ * working copy is locked, for example by another client, is retried with an
+ * exponential backoff.
+ *
+ * @author Anton Johansson
+ */
+@Singleton
+public class OperationScheduler
+{
+	static final String LOCKED = "E155004";
+	private static final int ATTEMPTS = 5;
+	private static final long INITIAL_DELAY = 100;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock(true);
+	private final int attempts;
+	private final long initialDelay;
+
+	/**
+	 * Constructs a new {@link OperationScheduler}.
+	 */
+	@Inject
+	public OperationScheduler()
+	{
+		this(ATTEMPTS, INITIAL_DELAY);
+	}
+
+	/**
+	 * Constructs a new {@link OperationScheduler}.
+	 *
+	 * @param attempts The number of attempts to make before giving up.
+	 * @param initialDelay The delay before the first retry, in milliseconds.
+	 */
+	OperationScheduler(int attempts, long initialDelay)
+	{
+		this.attempts = attempts;
+		this.initialDelay = initialDelay;
+	}
+
+	/**
+	 * Runs a read-only operation, possibly alongside other readers.
+	 *
+	 * @param operation The operation to run.
+	 * @return Returns the result of the operation.
+	 */
+	public <R> R read(Supplier<R> operation)
+	{
+		return retry(lock.readLock(), operation);
+	}
+
+	/**
+	 * Runs an operation that modifies the working copy, without any other
+	 * operations running at the same time.
+	 *
+	 * @param operation The operation to run.
+	 * @return Returns the result of the operation.
+	 */
+	public <R> R write(Supplier<R> operation)
+	{
+		return retry(lock.writeLock(), operation);
+	}
+
+	/**
+	 * Runs an operation that modifies the working copy and reports its
+	 * outcome through callbacks, like {@code svn update} and {@code svn commit}.
+	 * The operation must complete before it returns.
+	 * <p>
+	 * Failed attempts whose output reports a locked working copy are retried.
+	 * Only the outcome of the last attempt is passed to {@code onComplete}.
+	 *
+	 * @param onData The consumer that accepts the output of each attempt.
+	 * @param onComplete The consumer that accepts the outcome of the operation.
+	 * @param operation The operation to run, which accepts the output and outcome consumers.
+	 */
+	public void write(Consumer<String> onData, Consumer<Boolean> onComplete, BiConsumer<Consumer<String>, Consumer<Boolean>> operation)
+	{
+		for (int attempt = 1;; attempt++)
+		{
+			AtomicBoolean locked = new AtomicBoolean();
+			AtomicReference<Boolean> success = new AtomicReference<>(false);
+			Consumer<String> output = data ->
+			{
+				if (data.contains(LOCKED))
+				{
+					locked.set(true);
+				}
+				onData.accept(data);
+			};
+
+			withLock(lock.writeLock(), () ->
+			{
+				operation.accept(output, success::set);
+				return null;
+			});
+
+			if (success.get() || !locked.get() || attempt >= attempts)
+			{
+				onComplete.accept(success.get());
+				return;
+			}
+
+			long delay = delay(attempt);
+			onData.accept("Working copy is locked, retrying in " + delay + " ms" + lineSeparator());
+			sleep(delay);
+		}
+	}
+
+	private <R> R retry(Lock lock, Supplier<R> operation)
+	{
+		for (int attempt = 1;; attempt++)
+		{
+			try
+			{
+				return withLock(lock, operation);
+			}
+			catch (RuntimeException e)
+			{
+				if (!isLocked(e) || attempt >= attempts)
+				{
+					throw e;
+				}
+			}
+			// The lock is released while waiting, so that others can make progress
+			sleep(delay(attempt));
+		}
+	}
+
+	private static <R> R withLock(Lock lock, Supplier<R> operation)
+	{
+		try
+		{
+			lock.lockInterruptibly();
+		}
+		catch (InterruptedException e)
+		{
+			throw cancelled(e);
+		}
+
+		try
+		{
+			return operation.get();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	private long delay(int attempt)
+	{
+		return initialDelay << (attempt - 1);
+	}
+
+	private static void sleep(long delay)
+	{
+		try
+		{
+			Thread.sleep(delay);
+		}
+		catch (InterruptedException e)
+		{
+			throw cancelled(e);
+		}
+	}
+
+	/**
+	 * Turns an interrupt while waiting for the working copy into a
+	 * cancellation of the operation, keeping the thread interrupted.
+	 */
+	private static CancellationException cancelled(InterruptedException e)
+	{
+		Thread.currentThread().interrupt();
+		CancellationException cancellation = new CancellationException("Interrupted while waiting for the working copy lock");
+		cancellation.initCause(e);
+		return cancellation;
+	}
+
+	private static boolean isLocked(Throwable throwable)
+	{
+		for (Throwable cause = throwable; cause != null; cause = cause.getCause())
+		{
+			if (cause.getMessage() != null && cause.getMessage().contains(LOCKED))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.concurrent;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Handle of a task that is submitted to the {@link Worker}.
+ * <p>
+ * A task that has not started yet is skipped when it is cancelled. A running
+ * task runs under a {@link Cancellation}, so cancelling it interrupts it and
+ * stops the blocking work that it registered, such as {@code svn} processes.
+ * It is still expected to check {@link #isCancelled()} and discard its
+ * results.
+ *
+ * @author Anton Johansson
+ */
+public final class TaskHandle
+{
+	private final AtomicBoolean started = new AtomicBoolean();
+	private final AtomicBoolean cancelled = new AtomicBoolean();
+	private final Cancellation cancellation = new Cancellation();
+
+	/**
+	 * Constructs a new {@link TaskHandle}.
+	 */
+	TaskHandle()
+	{
+	}
+
+	/**
+	 * Cancels the task.
+	 */
+	public void cancel()
+	{
+		cancelled.set(true);
+		cancellation.cancel();
+	}
+
+	/**
+	 * Gets whether or not the task has been cancelled.
+	 *
+	 * @return Returns {@code true} if the task is cancelled.
+	 */
+	public boolean isCancelled()
+	{
+		return cancelled.get();
+	}
+
+	/**
+	 * Gets whether or not the task has started running.
+	 *
+	 * @return Returns {@code true} if the task has started.
+	 */
+	public boolean isStarted()
+	{
+		return started.get();
+	}
+
+	/**
+	 * Marks the task as started.
+	 *
+	 * @return Returns {@code true} if the task should run, or {@code false} if it was cancelled before it started.
+	 */
+	boolean start()
+	{
+		started.set(true);
+		return !cancelled.get();
+	}
+
+	/**
+	 * Runs the given task under the cancellation of this handle.
+	 *
+	 * @param task The task to run.
+	 */
+	void run(Runnable task)
+	{
+		cancellation.run(() ->
+		{
+			task.run();
+			return null;
+		});
+	}
+}
@@ -15,22 +15,47 @@
  */
 package com.antonjohansson.svncommit.core.concurrent;
 
+import java.util.function.Consumer;
+
 /**
- * Handles background jobs.
+ * Handles background jobs, in separate {@link Lane lanes}.
  *
  * @author Anton Johansson
  */
 public interface Worker
 {
 	/**
-	 * Submits a task to the worker thread.
+	 * Submits a task to the given lane.
+	 *
+	 * @param lane The lane to run the task in.
+	 * @param task The task to execute, which accepts its own handle.
+	 * @return Returns the handle of the task.
+	 */
+	TaskHandle submit(Lane lane, Consumer<TaskHandle> task);
+
+	/**
+	 * Submits a keyed task to the given lane.
+	 * <p>
+	 * If a task with the same key is waiting to run, that task is returned
+	 * instead, so that duplicate requests are coalesced. If a task with the
+	 * same key is running, it is cancelled, since its results are stale.
+	 *
+	 * @param lane The lane to run the task in.
+	 * @param key The key of the task.
+	 * @param task The task to execute, which accepts its own handle.
+	 * @return Returns the handle of the task, or of the waiting task that it was coalesced with.
+	 */
+	TaskHandle submit(Lane lane, String key, Consumer<TaskHandle> task);
+
+	/**
+	 * Registers a hook that is run when the worker is shut down.
 	 *
-	 * @param task Task to execute.
+	 * @param hook The hook to run.
 	 */
-	void submit(Runnable task);
+	void onShutdown(Runnable hook);
 
 	/**
-	 * Shuts the worker down.
+	 * Shuts the worker down, and runs the registered shutdown hooks.
 	 */
 	void shutdown();
 }
@@ -18,63 +18,139 @@ package com.antonjohansson.svncommit.core.concurrent;
 import com.antonjohansson.svncommit.core.view.DialogFactory;
 
 import static com.antonjohansson.svncommit.core.utils.ForcedExit.exit;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static javafx.application.Platform.runLater;
+import static org.apache.commons.lang3.StringUtils.defaultIfBlank;
 
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import com.google.inject.Inject;
 
-import javafx.concurrent.Task;
-
 /**
- * Default implementation of {@link Worker}.
+ * Default implementation of {@link Worker}, with one thread per {@link Lane}.
  *
  * @author Anton Johansson
  */
 class WorkerImpl implements Worker
 {
 	private final DialogFactory dialogFactory;
-	private final ExecutorService service;
+	private final Map<Lane, ExecutorService> lanes = new EnumMap<>(Lane.class);
+	private final Map<String, TaskHandle> keyedTasks = new HashMap<>();
+	private final List<Runnable> shutdownHooks = new CopyOnWriteArrayList<>();
 
 	/**
 	 * Constructs a new {@link WorkerImpl}.
 	 *
 	 * @param dialogFactory The factory that creates dialogs.
-	 * @param service The executor service.
 	 */
 	@Inject
-	WorkerImpl(DialogFactory dialogFactory, ExecutorService service)
+	WorkerImpl(DialogFactory dialogFactory)
+	{
+		this(dialogFactory, lane -> newSingleThreadExecutor(runnable -> new Thread(runnable, "svn-commit-" + lane.name().toLowerCase())));
+	}
+
+	/**
+	 * Constructs a new {@link WorkerImpl}.
+	 *
+	 * @param dialogFactory The factory that creates dialogs.
+	 * @param executors Creates the executor service of each lane.
+	 */
+	WorkerImpl(DialogFactory dialogFactory, Function<Lane, ExecutorService> executors)
 	{
 		this.dialogFactory = dialogFactory;
-		this.service = service;
+		for (Lane lane : Lane.values())
+		{
+			lanes.put(lane, executors.apply(lane));
+		}
 	}
 
 	/** {@inheritDoc} */
 	@Override
-	public void submit(Runnable task)
+	public TaskHandle submit(Lane lane, Consumer<TaskHandle> task)
 	{
-		Task<Void> actualTask = new Task<Void>()
+		TaskHandle handle = new TaskHandle();
+		lanes.get(lane).submit(() -> run(handle, task, null));
+		return handle;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public TaskHandle submit(Lane lane, String key, Consumer<TaskHandle> task)
+	{
+		TaskHandle handle;
+		synchronized (keyedTasks)
 		{
-			@Override
-			protected Void call() throws Exception
+			TaskHandle existing = keyedTasks.get(key);
+			if (existing != null && !existing.isStarted())
+			{
+				return existing;
+			}
+			if (existing != null)
 			{
-				task.run();
-				return null;
+				existing.cancel();
 			}
-		};
 
-		actualTask.setOnFailed(e ->
+			handle = new TaskHandle();
+			keyedTasks.put(key, handle);
+		}
+
+		lanes.get(lane).submit(() -> run(handle, task, key));
+		return handle;
+	}
+
+	private void run(TaskHandle handle, Consumer<TaskHandle> task, String key)
+	{
+		try
 		{
-			Throwable exception = actualTask.getException();
-			dialogFactory.error(exception.getMessage());
-			exit();
-		});
-		service.submit(actualTask);
+			if (handle.start())
+			{
+				handle.run(() -> task.accept(handle));
+			}
+		}
+		catch (Throwable e)
+		{
+			if (handle.isCancelled())
+			{
+				// The task failed because it was stopped, and its results are not wanted anyway
+				return;
+			}
+			runLater(() ->
+			{
+				dialogFactory.error(defaultIfBlank(e.getMessage(), e.toString()));
+				exit();
+			});
+		}
+		finally
+		{
+			if (key != null)
+			{
+				synchronized (keyedTasks)
+				{
+					keyedTasks.remove(key, handle);
+				}
+			}
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void onShutdown(Runnable hook)
+	{
+		shutdownHooks.add(hook);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public void shutdown()
 	{
-		service.shutdown();
+		lanes.values().forEach(ExecutorService::shutdown);
+		shutdownHooks.forEach(Runnable::run);
 	}
 }
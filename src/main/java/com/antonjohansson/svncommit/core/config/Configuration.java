@@ -28,7 +28,17 @@ import org.apache.commons.io.FileUtils;
  */
 public class Configuration
 {
+	private static final int DEFAULT_ASYNC_THREADS = 4;
+
 	private final boolean replicationEnabled;
+	private final boolean shellSessionEnabled;
+	private final boolean textStatusEnabled;
+	private final boolean svnKitEnabled;
+	private final boolean wcDbStatusEnabled;
+	private final boolean watchEnabled;
+	private final int asyncThreads;
+	private final long stallThreshold;
+	private final boolean statisticsEnabled;
 
 	/**
 	 * Constructs a new {@link Configuration} with the default properties.
@@ -36,6 +46,14 @@ public class Configuration
 	public Configuration()
 	{
 		this.replicationEnabled = false;
+		this.shellSessionEnabled = false;
+		this.textStatusEnabled = false;
+		this.svnKitEnabled = false;
+		this.wcDbStatusEnabled = false;
+		this.watchEnabled = false;
+		this.asyncThreads = DEFAULT_ASYNC_THREADS;
+		this.stallThreshold = 0;
+		this.statisticsEnabled = false;
 	}
 
 	/**
@@ -51,6 +69,14 @@ public class Configuration
 			properties.load(FileUtils.openInputStream(configurationFile));
 
 			this.replicationEnabled = Boolean.parseBoolean(properties.getProperty("replication-enabled"));
+			this.shellSessionEnabled = Boolean.parseBoolean(properties.getProperty("shell-session-enabled"));
+			this.textStatusEnabled = Boolean.parseBoolean(properties.getProperty("text-status-enabled"));
+			this.svnKitEnabled = Boolean.parseBoolean(properties.getProperty("svnkit-enabled"));
+			this.wcDbStatusEnabled = Boolean.parseBoolean(properties.getProperty("wc-db-status-enabled"));
+			this.watchEnabled = Boolean.parseBoolean(properties.getProperty("watch-enabled"));
+			this.asyncThreads = Integer.parseInt(properties.getProperty("async-threads", String.valueOf(DEFAULT_ASYNC_THREADS)));
+			this.stallThreshold = Long.parseLong(properties.getProperty("stall-threshold", "0"));
+			this.statisticsEnabled = Boolean.parseBoolean(properties.getProperty("statistics-enabled"));
 		}
 		catch (IOException e)
 		{
@@ -62,4 +88,44 @@ public class Configuration
 	{
 		return replicationEnabled;
 	}
+
+	public boolean isShellSessionEnabled()
+	{
+		return shellSessionEnabled;
+	}
+
+	public boolean isTextStatusEnabled()
+	{
+		return textStatusEnabled;
+	}
+
+	public boolean isSvnKitEnabled()
+	{
+		return svnKitEnabled;
+	}
+
+	public boolean isWcDbStatusEnabled()
+	{
+		return wcDbStatusEnabled;
+	}
+
+	public boolean isWatchEnabled()
+	{
+		return watchEnabled;
+	}
+
+	public int getAsyncThreads()
+	{
+		return asyncThreads;
+	}
+
+	public long getStallThreshold()
+	{
+		return stallThreshold;
+	}
+
+	public boolean isStatisticsEnabled()
+	{
+		return statisticsEnabled;
+	}
 }
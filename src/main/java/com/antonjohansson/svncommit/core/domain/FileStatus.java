@@ -23,27 +23,57 @@ package com.antonjohansson.svncommit.core.domain;
 public enum FileStatus
 {
 	/** The file is not under source control. */
-	UNVERSIONED('?', "Unversioned", false),
+	UNVERSIONED('?', "unversioned", "Unversioned", false),
 
 	/** The file is under version control, but is missing in the working copy. */
-	MISSING('!', "Missing", false),
+	MISSING('!', "missing", "Missing", false),
 
 	/** The file is not under source control, but is set to be added. */
-	ADDED('A', "Added", true),
+	ADDED('A', "added", "Added", true),
 
 	/** The file is under source control and is modified. */
-	MODIFIED('M', "Modified", true),
+	MODIFIED('M', "modified", "Modified", true),
 
 	/** The file is under source control, but will be deleted upon commit. */
-	DELETED('D', "Deleted", true);
+	DELETED('D', "deleted", "Deleted", true),
+
+	/** The file is under source control and has not been modified. */
+	NORMAL(' ', "normal", "Normal", false),
+
+	/** The file is under source control, but has been deleted and added again. */
+	REPLACED('R', "replaced", "Replaced", true),
+
+	/** The file is in conflict, and must be resolved before it can be committed. */
+	CONFLICTED('C', "conflicted", "Conflicted", false),
+
+	/** The file is under source control, but is obstructed by an item of a different kind. */
+	OBSTRUCTED('~', "obstructed", "Obstructed", false),
+
+	/** The file is unversioned, but is used by an externals definition. */
+	EXTERNAL('X', "external", "External", false),
+
+	/** The file is not under source control, and is ignored. */
+	IGNORED('I', "ignored", "Ignored", false);
+
+	private static final FileStatus[] BY_KEY = new FileStatus[128];
+
+	static
+	{
+		for (FileStatus status : values())
+		{
+			BY_KEY[status.key] = status;
+		}
+	}
 
 	private final char key;
+	private final String item;
 	private final String caption;
 	private final boolean commitable;
 
-	private FileStatus(char key, String caption, boolean commitable)
+	private FileStatus(char key, String item, String caption, boolean commitable)
 	{
 		this.key = key;
+		this.item = item;
 		this.caption = caption;
 		this.commitable = commitable;
 	}
@@ -69,20 +99,47 @@ public enum FileStatus
 	}
 
 	/**
-	 * Gets the status with given key.
+	 * Gets the status with given key, as printed in the first column of {@code svn status}.
 	 *
 	 * @param key The key to get status for.
 	 * @return Returns the status.
 	 */
 	public static FileStatus getStatus(char key)
 	{
-		for (FileStatus status : FileStatus.values())
+		FileStatus status = key < BY_KEY.length ? BY_KEY[key] : null;
+		if (status == null)
+		{
+			throw new IllegalArgumentException("key");
+		}
+		return status;
+	}
+
+	/**
+	 * Gets the status with given item name, as printed by {@code svn status --xml}.
+	 * Item names that are not known are treated as modified.
+	 *
+	 * @param item The item name, for example {@code modified}.
+	 * @return Returns the status.
+	 */
+	public static FileStatus getStatus(String item)
+	{
+		switch (item)
 		{
-			if (status.key == key)
-			{
-				return status;
-			}
+			case "none":
+				return NORMAL;
+			case "incomplete":
+				return MISSING;
+			case "merged":
+				return MODIFIED;
+			default:
+				for (FileStatus status : values())
+				{
+					if (status.item.equals(item))
+					{
+						return status;
+					}
+				}
+				return MODIFIED;
 		}
-		throw new IllegalArgumentException("key");
 	}
 }
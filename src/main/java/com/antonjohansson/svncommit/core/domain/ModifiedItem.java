@@ -16,8 +16,12 @@
 package com.antonjohansson.svncommit.core.domain;
 
 import static com.antonjohansson.svncommit.core.domain.DbUpdateLocation.NONE;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.NORMAL;
 import static org.apache.commons.lang3.builder.ToStringStyle.SHORT_PREFIX_STYLE;
 
+import java.util.Collection;
+import java.util.function.Consumer;
+
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.EqualsBuilder;
@@ -33,81 +37,216 @@ import javafx.beans.property.StringProperty;
 
 /**
  * Defines an item to commit.
+ * <p>
+ * The values are kept in plain fields, and the JavaFX properties are only
+ * created when they are first requested, which is when the item is shown in
+ * a table. Items that are never shown therefore never allocate properties.
  *
  * @author Anton Johansson
  */
 public class ModifiedItem
 {
-	private final BooleanProperty doCommitProperty = new SimpleBooleanProperty();
-	private final Property<FileStatus> statusProperty = new SimpleObjectProperty<>();
-	private final StringProperty fileNameProperty = new SimpleStringProperty();
-	private final Property<DbUpdateLocation> replicationProperty = new SimpleObjectProperty<>(NONE);
+	private final FileStatus propertyStatus;
+	private boolean doCommit;
+	private FileStatus status;
+	private String fileName;
+	private DbUpdateLocation replication = NONE;
+	private BooleanProperty doCommitProperty;
+	private Property<FileStatus> statusProperty;
+	private StringProperty fileNameProperty;
+	private Property<DbUpdateLocation> replicationProperty;
+	private Consumer<Boolean> doCommitListener;
+	private boolean locked;
+	private boolean treeConflicted;
+	private String changelist;
 
 	public ModifiedItem(String fileName, FileStatus status)
 	{
-		this.fileNameProperty.setValue(fileName);
-		this.statusProperty.setValue(status);
-		this.doCommitProperty.setValue(status.isCommitable());
+		this(fileName, status, NORMAL);
+	}
+
+	public ModifiedItem(String fileName, FileStatus status, FileStatus propertyStatus)
+	{
+		this.propertyStatus = propertyStatus;
+		this.fileName = fileName;
+		this.status = status;
+		this.doCommit = isCommitable();
 	}
 
 	public BooleanProperty doCommitProperty()
 	{
+		if (doCommitProperty == null)
+		{
+			doCommitProperty = new SimpleBooleanProperty(this, "doCommit", doCommit);
+			doCommitProperty.addListener((observable, wasMarked, marked) -> notifyDoCommit(marked));
+		}
 		return doCommitProperty;
 	}
 
 	public Property<FileStatus> statusProperty()
 	{
+		if (statusProperty == null)
+		{
+			statusProperty = new SimpleObjectProperty<>(this, "status", status);
+		}
 		return statusProperty;
 	}
 
 	public StringProperty fileNameProperty()
 	{
+		if (fileNameProperty == null)
+		{
+			fileNameProperty = new SimpleStringProperty(this, "fileName", fileName);
+		}
 		return fileNameProperty;
 	}
 
 	public Property<DbUpdateLocation> replicationProperty()
 	{
+		if (replicationProperty == null)
+		{
+			replicationProperty = new SimpleObjectProperty<>(this, "replication", replication);
+		}
 		return replicationProperty;
 	}
 
 	public boolean isDoCommit()
 	{
-		return doCommitProperty.getValue();
+		return doCommitProperty == null ? doCommit : doCommitProperty.get();
 	}
 
 	public void setDoCommit(boolean doCommit)
 	{
-		doCommitProperty.setValue(doCommit);
+		if (doCommitProperty == null)
+		{
+			if (this.doCommit != doCommit)
+			{
+				this.doCommit = doCommit;
+				notifyDoCommit(doCommit);
+			}
+		}
+		else
+		{
+			doCommitProperty.set(doCommit);
+		}
+	}
+
+	/**
+	 * Sets the listener that is told when 'Do commit' changes. Unlike a
+	 * listener on {@link #doCommitProperty()}, this does not create the
+	 * property. Only one such listener is kept.
+	 *
+	 * @param listener The listener that accepts the new value, or {@code null} to remove it.
+	 */
+	public void setDoCommitListener(Consumer<Boolean> listener)
+	{
+		this.doCommitListener = listener;
+	}
+
+	private void notifyDoCommit(boolean doCommit)
+	{
+		if (doCommitListener != null)
+		{
+			doCommitListener.accept(doCommit);
+		}
 	}
 
 	public FileStatus getStatus()
 	{
-		return statusProperty.getValue();
+		return statusProperty == null ? status : statusProperty.getValue();
 	}
 
 	public void setStatus(FileStatus status)
 	{
-		statusProperty.setValue(status);
+		if (statusProperty == null)
+		{
+			this.status = status;
+		}
+		else
+		{
+			statusProperty.setValue(status);
+		}
 	}
 
 	public String getFileName()
 	{
-		return fileNameProperty.getValue();
+		return fileNameProperty == null ? fileName : fileNameProperty.get();
 	}
 
 	public void setFileName(String fileName)
 	{
-		fileNameProperty.setValue(fileName);
+		if (fileNameProperty == null)
+		{
+			this.fileName = fileName;
+		}
+		else
+		{
+			fileNameProperty.set(fileName);
+		}
 	}
 
 	public DbUpdateLocation getReplication()
 	{
-		return replicationProperty.getValue();
+		return replicationProperty == null ? replication : replicationProperty.getValue();
 	}
 
 	public void setReplication(DbUpdateLocation replication)
 	{
-		replicationProperty.setValue(replication);
+		if (replicationProperty == null)
+		{
+			this.replication = replication;
+		}
+		else
+		{
+			replicationProperty.setValue(replication);
+		}
+	}
+
+	public FileStatus getPropertyStatus()
+	{
+		return propertyStatus;
+	}
+
+	public boolean isLocked()
+	{
+		return locked;
+	}
+
+	public void setLocked(boolean locked)
+	{
+		this.locked = locked;
+	}
+
+	public boolean isTreeConflicted()
+	{
+		return treeConflicted;
+	}
+
+	public void setTreeConflicted(boolean treeConflicted)
+	{
+		this.treeConflicted = treeConflicted;
+	}
+
+	public String getChangelist()
+	{
+		return changelist;
+	}
+
+	public void setChangelist(String changelist)
+	{
+		this.changelist = changelist;
+	}
+
+	/**
+	 * Gets whether or not this item is commitable, either because of its
+	 * own status or the status of its properties.
+	 *
+	 * @return Returns {@code true} if this item is commitable.
+	 */
+	public boolean isCommitable()
+	{
+		return !treeConflicted
+			&& (getStatus().isCommitable() || propertyStatus.isCommitable());
 	}
 
 	/**
@@ -125,7 +264,7 @@ public class ModifiedItem
 	 */
 	public boolean canReplicate()
 	{
-		String extension = FilenameUtils.getExtension(fileNameProperty.getValue());
+		String extension = FilenameUtils.getExtension(getFileName());
 		return StringUtils.equalsIgnoreCase(extension, "SQL");
 	}
 
@@ -140,6 +279,20 @@ public class ModifiedItem
 		return getFileName().equals(other.getFileName());
 	}
 
+	/**
+	 * Gets whether or not this item is one of the given directories, or directly within one of them.
+	 *
+	 * @param directories The directories to check, where {@code "."} is the root.
+	 * @return Returns {@code true} if this item is one of, or directly within one of, the directories.
+	 */
+	public boolean isWithin(Collection<String> directories)
+	{
+		String fileName = getFileName();
+		int separator = fileName.lastIndexOf('/');
+		String parent = separator == -1 ? "." : fileName.substring(0, separator);
+		return directories.contains(fileName) || (!".".equals(fileName) && directories.contains(parent));
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public int hashCode()
@@ -166,6 +319,10 @@ public class ModifiedItem
 				.append(this.getStatus(), that.getStatus())
 				.append(this.getFileName(), that.getFileName())
 				.append(this.getReplication(), that.getReplication())
+				.append(this.propertyStatus, that.propertyStatus)
+				.append(this.locked, that.locked)
+				.append(this.treeConflicted, that.treeConflicted)
+				.append(this.changelist, that.changelist)
 				.isEquals();
 	}
 
@@ -178,6 +335,10 @@ public class ModifiedItem
 				.append("status", getStatus())
 				.append("fileName", getFileName())
 				.append("replication", getReplication())
+				.append("propertyStatus", propertyStatus)
+				.append("locked", locked)
+				.append("treeConflicted", treeConflicted)
+				.append("changelist", changelist)
 				.toString();
 	}
 }
@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.utils;
+
+import com.antonjohansson.svncommit.core.concurrent.Cancellation;
+import com.antonjohansson.svncommit.core.concurrent.Cancellation.Registration;
+
+import static java.nio.charset.Charset.defaultCharset;
+import static org.apache.commons.io.IOUtils.skip;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+import org.apache.commons.io.input.CloseShieldInputStream;
+
+/**
+ * Abstract skeleton for {@link Shell} implementations. Sub classes decide how
+ * the actual process is started.
+ *
+ * @author Anton Johansson
+ */
+abstract class AbstractShell implements Shell
+{
+	private static final String FX_THREAD_NAME = "JavaFX Application Thread";
+
+	protected final File path;
+
+	/**
+	 * Constructs a new {@link AbstractShell}.
+	 *
+	 * @param path The path to execute commands in.
+	 */
+	protected AbstractShell(File path)
+	{
+		this.path = path;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void execute(String... command)
+	{
+		checkThread();
+		start(command);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	@SuppressWarnings("try")
+	public <R> R execute(ThrowingFunction<InputStream, R, IOException> function, String... command)
+	{
+		checkThread();
+		Process process = start(command);
+		StringBuffer errors = new StringBuffer();
+
+		StreamPump errorPump = new StreamPump(process.getErrorStream(), defaultCharset(), errors::append, new Object());
+		errorPump.start();
+
+		try (Registration registration = Cancellation.onCancel(process::destroyForcibly))
+		{
+			InputStream output = process.getInputStream();
+			R result = function.apply(new CloseShieldInputStream(output));
+			// Output that the function did not read would block the command on a full pipe
+			skip(output, Long.MAX_VALUE);
+			errorPump.await();
+			int exitValue = process.waitFor();
+			if (exitValue != 0)
+			{
+				throw commandFailed(exitValue, errors);
+			}
+			return result;
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException("Could not execute command", e);
+		}
+		catch (InterruptedException e)
+		{
+			process.destroy();
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for command", e);
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	@SuppressWarnings("try")
+	public void executeAndPipeOutput(Consumer<String> onData, Consumer<String> onError, Consumer<Boolean> onComplete, String... command)
+	{
+		checkThread();
+		Process process = start(command);
+		Object lock = new Object();
+
+		StreamPump errorPump = new StreamPump(process.getErrorStream(), defaultCharset(), onError, lock);
+		errorPump.start();
+
+		try (Registration registration = Cancellation.onCancel(process::destroyForcibly))
+		{
+			new StreamPump(process.getInputStream(), defaultCharset(), onData, lock).pump();
+			errorPump.await();
+			int exitValue = process.waitFor();
+			onComplete.accept(exitValue == 0);
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException("Could not execute command", e);
+		}
+		catch (InterruptedException e)
+		{
+			process.destroy();
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for command", e);
+		}
+	}
+
+	/**
+	 * Fails if a command is run on the JavaFX application thread, where it
+	 * would freeze the user interface. This is an assertion, so it guards the
+	 * tests without costing anything in production. The thread is recognized
+	 * by its name, since asking JavaFX would start its toolkit.
+	 */
+	protected static void checkThread()
+	{
+		assert !FX_THREAD_NAME.equals(Thread.currentThread().getName()) : "Shell commands must not run on the JavaFX application thread";
+	}
+
+	/**
+	 * Creates the exception to throw when a command exits with a non-zero
+	 * exit code. The message is the error output of the command, so that
+	 * callers can recognize errors such as a locked working copy.
+	 *
+	 * @param exitValue The exit code of the command.
+	 * @param errors The error output of the command.
+	 * @return Returns the exception to throw.
+	 */
+	protected static RuntimeException commandFailed(int exitValue, CharSequence errors)
+	{
+		String message = errors.toString().trim();
+		return new RuntimeException(message.isEmpty() ? "Command failed with exit code " + exitValue : message);
+	}
+
+	/**
+	 * Starts the given command in the path of this shell.
+	 *
+	 * @param command The command to start, as an argument vector.
+	 * @return Returns the started process.
+	 */
+	protected abstract Process start(String... command);
+
+	/**
+	 * Starts the given process builder in the path of this shell.
+	 *
+	 * @param builder The process builder to start.
+	 * @return Returns the started process.
+	 */
+	protected Process start(ProcessBuilder builder)
+	{
+		try
+		{
+			return builder.directory(path).start();
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException(e.getMessage(), e);
+		}
+	}
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.utils;
+
+import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking variant of {@link Subversion}, where every operation runs in
+ * the background and returns a {@link CompletableFuture}.
+ * <p>
+ * Cancelling a future, or letting it time out, stops the operation and
+ * kills the processes that it has started.
+ *
+ * @author Anton Johansson
+ */
+public interface AsyncSubversion
+{
+	/**
+	 * Gets a collection of all modified files.
+	 *
+	 * @return Returns the future collection of modified files.
+	 */
+	CompletableFuture<Collection<ModifiedItem>> getModifiedItems();
+
+	/**
+	 * Reads all modified files, and passes each of them to the given consumer
+	 * as soon as it is read. The consumer is called on a background thread.
+	 *
+	 * @param consumer The consumer that accepts each modified file.
+	 * @return Returns a future that completes when all files are read.
+	 */
+	CompletableFuture<Void> readModifiedItems(Consumer<ModifiedItem> consumer);
+
+	/**
+	 * Gets a collection of the modified files within the given directories,
+	 * including the directories themselves but not their subdirectories' contents.
+	 *
+	 * @param directories The directories, relative to the path.
+	 * @return Returns the future collection of modified files.
+	 */
+	CompletableFuture<Collection<ModifiedItem>> getModifiedItems(Collection<String> directories);
+
+	/**
+	 * Brings up the Meld compare tool for the given file.
+	 *
+	 * @param fileName The file to compare.
+	 * @return Returns a future that completes when the tool is started.
+	 */
+	CompletableFuture<Void> compare(String fileName);
+
+	/**
+	 * Performs an {@code svn update} on the path.
+	 *
+	 * @param onData The consumer that will accept log output, on a background thread.
+	 * @return Returns a future that completes with whether or not the update succeeded.
+	 */
+	CompletableFuture<Boolean> update(Consumer<String> onData);
+
+	/**
+	 * Commits the given file paths with given message.
+	 *
+	 * @param message The message to use in the commit.
+	 * @param filePaths The path of the files to commit.
+	 * @param onData The consumer that will accept log output, on a background thread.
+	 * @return Returns a future that completes with whether or not the commit succeeded.
+	 */
+	CompletableFuture<Boolean> commit(String message, Collection<String> filePaths, Consumer<String> onData);
+
+	/**
+	 * Adds the given files, in one operation.
+	 *
+	 * @param fileNames The file names of the files to add.
+	 * @return Returns a future that completes when the files are added.
+	 */
+	CompletableFuture<Void> add(Collection<String> fileNames);
+
+	/**
+	 * Deletes the given files, in one operation.
+	 *
+	 * @param fileNames The file names of the files to delete.
+	 * @return Returns a future that completes when the files are deleted.
+	 */
+	CompletableFuture<Void> delete(Collection<String> fileNames);
+
+	/**
+	 * Gets a view of this instance, where every operation fails with a
+	 * {@link java.util.concurrent.TimeoutException} and is stopped if it does
+	 * not complete within the given time.
+	 *
+	 * @param timeout The maximum time that each operation may take.
+	 * @param unit The unit of the timeout.
+	 * @return Returns the view with the timeout.
+	 */
+	AsyncSubversion withTimeout(long timeout, TimeUnit unit);
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.utils;
+
+import com.antonjohansson.svncommit.core.concurrent.Cancellation;
+import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Default implementation of {@link AsyncSubversion}, which runs the operations
+ * of a blocking {@link Subversion} on an executor.
+ *
+ * @author Anton Johansson
+ */
+class AsyncSubversionImpl implements AsyncSubversion
+{
+	private final Subversion subversion;
+	private final Executor executor;
+	private final ScheduledExecutorService timer;
+	private final long timeoutMillis;
+
+	/**
+	 * Constructs a new {@link AsyncSubversionImpl} instance.
+	 *
+	 * @param subversion The implementation that performs the operations.
+	 * @param executor The executor to run the operations on.
+	 * @param timer The executor that times out operations.
+	 */
+	AsyncSubversionImpl(Subversion subversion, Executor executor, ScheduledExecutorService timer)
+	{
+		this(subversion, executor, timer, 0);
+	}
+
+	private AsyncSubversionImpl(Subversion subversion, Executor executor, ScheduledExecutorService timer, long timeoutMillis)
+	{
+		this.subversion = subversion;
+		this.executor = executor;
+		this.timer = timer;
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public CompletableFuture<Collection<ModifiedItem>> getModifiedItems()
+	{
+		return submit(subversion::getModifiedItems);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public CompletableFuture<Void> readModifiedItems(Consumer<ModifiedItem> consumer)
+	{
+		return run(() -> subversion.readModifiedItems(consumer));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public CompletableFuture<Collection<ModifiedItem>> getModifiedItems(Collection<String> directories)
+	{
+		return submit(() -> subversion.getModifiedItems(directories));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public CompletableFuture<Void> compare(String fileName)
+	{
+		return run(() -> subversion.compare(fileName));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public CompletableFuture<Boolean> update(Consumer<String> onData)
+	{
+		return outcome(onComplete -> subversion.update(onData, onComplete));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public CompletableFuture<Boolean> commit(String message, Collection<String> filePaths, Consumer<String> onData)
+	{
+		return outcome(onComplete -> subversion.commit(message, filePaths, onData, onComplete));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public CompletableFuture<Void> add(Collection<String> fileNames)
+	{
+		return run(() -> subversion.add(fileNames));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public CompletableFuture<Void> delete(Collection<String> fileNames)
+	{
+		return run(() -> subversion.delete(fileNames));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public AsyncSubversion withTimeout(long timeout, TimeUnit unit)
+	{
+		return new AsyncSubversionImpl(subversion, executor, timer, unit.toMillis(timeout));
+	}
+
+	private CompletableFuture<Void> run(Runnable operation)
+	{
+		return submit(() ->
+		{
+			operation.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Submits an operation that reports its outcome through a callback,
+	 * before it returns.
+	 */
+	private CompletableFuture<Boolean> outcome(Consumer<Consumer<Boolean>> operation)
+	{
+		return submit(() ->
+		{
+			Boolean[] success = {false};
+			operation.accept(outcome -> success[0] = outcome);
+			return success[0];
+		});
+	}
+
+	private <R> CompletableFuture<R> submit(Supplier<R> operation)
+	{
+		Cancellation cancellation = new Cancellation();
+		CompletableFuture<R> future = new CompletableFuture<>();
+		executor.execute(() ->
+		{
+			if (future.isDone())
+			{
+				return;
+			}
+			try
+			{
+				future.complete(cancellation.run(operation));
+			}
+			catch (Throwable e)
+			{
+				future.completeExceptionally(e);
+			}
+		});
+
+		// Stops the operation if the future is cancelled or times out, and does nothing if it is finished
+		future.whenComplete((result, e) -> cancellation.cancel());
+
+		if (timeoutMillis > 0)
+		{
+			ScheduledFuture<?> timeout = timer.schedule(() -> future.completeExceptionally(new TimeoutException("The operation did not complete within " + timeoutMillis + " ms")), timeoutMillis, TimeUnit.MILLISECONDS);
+			future.whenComplete((result, e) -> timeout.cancel(false));
+		}
+		return future;
+	}
+}
@@ -0,0 +1,475 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.utils;
+
+import com.antonjohansson.svncommit.core.concurrent.Cancellation;
+import com.antonjohansson.svncommit.core.concurrent.Cancellation.Registration;
+import com.antonjohansson.svncommit.core.concurrent.Worker;
+
+import static java.lang.Integer.parseInt;
+import static java.lang.System.lineSeparator;
+import static java.nio.charset.Charset.defaultCharset;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.stream.Collectors.joining;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import com.google.inject.Inject;
+
+/**
+ * Implementation of {@link Shell} that keeps one long-lived bash process
+ * for the path, and sends each command to it over standard input. The output
+ * and exit code of each command are delimited with a sentinel marker.
+ * <p>
+ * Commands are executed one at a time, and their output is passed on while
+ * it is read, up to the marker. If the bash process dies, a new one is
+ * started for the next command. Commands that are not waited for, such as
+ * opening the compare tool, are started directly instead.
+ *
+ * @author Anton Johansson
+ */
+class BashSession extends AbstractShell
+{
+	private static final Consumer<String> DISCARD = line -> {};
+
+	private final String marker = "__svn-commit-" + UUID.randomUUID() + "__";
+	private final byte[] markerBytes = marker.getBytes(US_ASCII);
+	private volatile Session session;
+	private volatile boolean closed;
+
+	/**
+	 * Constructs a new {@link BashSession} instance.
+	 *
+	 * @param path The path to execute commands in.
+	 * @param worker The worker, which closes the session when it is shut down.
+	 */
+	@Inject
+	BashSession(File path, Worker worker)
+	{
+		super(path);
+		worker.onShutdown(this::close);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public <R> R execute(ThrowingFunction<InputStream, R, IOException> function, String... command)
+	{
+		StringBuilder errors = new StringBuilder();
+		return run(commandLine(command), errors::append, output ->
+		{
+			R result = function.apply(output);
+			int exitValue = output.finish();
+			if (exitValue != 0)
+			{
+				throw commandFailed(exitValue, errors);
+			}
+			return result;
+		});
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void executeAndPipeOutput(Consumer<String> onData, Consumer<String> onError, Consumer<Boolean> onComplete, String... command)
+	{
+		int exitValue = run(commandLine(command), onError, output ->
+		{
+			String line;
+			while ((line = output.readLine()) != null)
+			{
+				output.session.accept(onData, line);
+			}
+			return output.finish();
+		});
+		onComplete.accept(exitValue == 0);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected Process start(String... command)
+	{
+		return start(new ProcessBuilder(command));
+	}
+
+	/**
+	 * Converts the given argument vector into a single bash command line,
+	 * quoting each argument.
+	 *
+	 * @param command The argument vector.
+	 * @return Returns the command line.
+	 */
+	static String commandLine(String... command)
+	{
+		return Stream.of(command)
+				.map(BashSession::quote)
+				.collect(joining(" "));
+	}
+
+	private static String quote(String argument)
+	{
+		return "'" + argument.replace("'", "'\\''") + "'";
+	}
+
+	/**
+	 * Closes the session and terminates the bash process. This does not wait
+	 * for a running command, which fails instead.
+	 */
+	void close()
+	{
+		closed = true;
+		Session current = session;
+		if (current != null)
+		{
+			current.close();
+		}
+	}
+
+	@SuppressWarnings("try")
+	private synchronized <R> R run(String commandLine, Consumer<String> onError, ThrowingFunction<CommandOutput, R, IOException> reader)
+	{
+		checkThread();
+		if (closed)
+		{
+			throw new IllegalStateException("The shell session is closed");
+		}
+		if (session == null || !session.isAlive())
+		{
+			session = new Session();
+		}
+
+		// Cancelling kills the whole session, since bash cannot be told to abort just the running command
+		Session current = session;
+		CommandOutput output = null;
+		try (Registration registration = Cancellation.onCancel(current::close))
+		{
+			output = current.begin(commandLine, onError);
+			return reader.apply(output);
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException("The shell session terminated unexpectedly", e);
+		}
+		finally
+		{
+			// A command that was not read up to its marker leaves the session out of step
+			if (output == null || !output.finished)
+			{
+				current.close();
+				session = null;
+			}
+		}
+	}
+
+	/**
+	 * A single bash process.
+	 *
+	 * @author Anton Johansson
+	 */
+	private class Session
+	{
+		private final Process process;
+		private final Writer input;
+		private final InputStream output;
+		private final byte[] buffer = new byte[8192];
+		private final Semaphore errorMarkers = new Semaphore(0);
+		private volatile Consumer<String> onError = DISCARD;
+		private int position;
+		private int limit;
+
+		private Session()
+		{
+			process = start(new ProcessBuilder("bash", "--noprofile", "--norc"));
+			input = new OutputStreamWriter(process.getOutputStream(), defaultCharset());
+			output = process.getInputStream();
+			try
+			{
+				input.write("trap 'kill $! 2>/dev/null; exit 143' TERM\n");
+				input.flush();
+			}
+			catch (IOException e)
+			{
+				process.destroy();
+				throw new RuntimeException("Could not start the shell session", e);
+			}
+
+			Thread errorReader = new Thread(this::readErrors, "svn-commit-session-errors");
+			errorReader.setDaemon(true);
+			errorReader.start();
+		}
+
+		private boolean isAlive()
+		{
+			return process.isAlive();
+		}
+
+		private CommandOutput begin(String commandLine, Consumer<String> onError) throws IOException
+		{
+			this.onError = onError;
+			// The command runs as a job, so that bash can pass on a termination while waiting for it
+			input.write(commandLine + " </dev/null &" + "\n"
+					+ "wait $!\n"
+					+ "printf '%s %d\\n' '" + marker + "' $?\n"
+					+ "printf '%s\\n' '" + marker + "' >&2\n");
+			input.flush();
+			return new CommandOutput(this);
+		}
+
+		/**
+		 * Reads the next line of standard output, without its line break.
+		 */
+		private byte[] readLine() throws IOException
+		{
+			byte[] line = new byte[128];
+			int length = 0;
+			for (;;)
+			{
+				if (position == limit)
+				{
+					limit = output.read(buffer);
+					position = 0;
+					if (limit <= 0)
+					{
+						limit = 0;
+						throw new EOFException("Unexpected end of output from bash");
+					}
+				}
+				byte value = buffer[position++];
+				if (value == '\n')
+				{
+					return Arrays.copyOf(line, length);
+				}
+				if (length == line.length)
+				{
+					line = Arrays.copyOf(line, length * 2);
+				}
+				line[length++] = value;
+			}
+		}
+
+		/**
+		 * Finds the marker in the given line. Output without a trailing line
+		 * break ends up on the same line as the marker.
+		 */
+		private int indexOfMarker(byte[] line)
+		{
+			for (int start = line.length - markerBytes.length; start >= 0; start--)
+			{
+				if (regionMatches(line, start))
+				{
+					return start;
+				}
+			}
+			return -1;
+		}
+
+		private boolean regionMatches(byte[] line, int start)
+		{
+			for (int i = 0; i < markerBytes.length; i++)
+			{
+				if (line[start + i] != markerBytes[i])
+				{
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private void awaitErrors() throws IOException
+		{
+			try
+			{
+				errorMarkers.acquire();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for command", e);
+			}
+			onError = DISCARD;
+		}
+
+		private void readErrors()
+		{
+			try (BufferedReader errors = new BufferedReader(new InputStreamReader(process.getErrorStream(), defaultCharset())))
+			{
+				String line;
+				while ((line = errors.readLine()) != null)
+				{
+					int index = line.indexOf(marker);
+					if (index >= 0)
+					{
+						if (index > 0)
+						{
+							accept(onError, line.substring(0, index));
+						}
+						errorMarkers.release();
+						continue;
+					}
+					accept(onError, line.concat(lineSeparator()));
+				}
+			}
+			catch (IOException e)
+			{
+				// The process is gone, which is detected by the reader of the standard output
+			}
+			finally
+			{
+				// Make sure that nobody waits for a marker that never comes
+				errorMarkers.release();
+			}
+		}
+
+		private synchronized void accept(Consumer<String> consumer, String text)
+		{
+			consumer.accept(text);
+		}
+
+		/**
+		 * Terminates bash, which terminates the running command as well.
+		 * Killing bash forcibly would leave the command running, holding on
+		 * to the output.
+		 */
+		private void close()
+		{
+			process.destroy();
+		}
+	}
+
+	/**
+	 * The standard output of a single command, which ends at the marker.
+	 *
+	 * @author Anton Johansson
+	 */
+	private class CommandOutput extends InputStream
+	{
+		private final Session session;
+		private byte[] current = new byte[0];
+		private int position;
+		private boolean finished;
+		private int exitValue;
+
+		private CommandOutput(Session session)
+		{
+			this.session = session;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public int read() throws IOException
+		{
+			if (!fill())
+			{
+				return -1;
+			}
+			return current[position++] & 0xFF;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public int read(byte[] target, int offset, int length) throws IOException
+		{
+			if (length == 0)
+			{
+				return 0;
+			}
+			if (!fill())
+			{
+				return -1;
+			}
+			int count = Math.min(length, current.length - position);
+			System.arraycopy(current, position, target, offset, count);
+			position += count;
+			return count;
+		}
+
+		/**
+		 * Reads the rest of the current line, including its line separator
+		 * unless it is the last line and has none.
+		 *
+		 * @return Returns the line, or {@code null} at the end of the output.
+		 */
+		private String readLine() throws IOException
+		{
+			if (!fill())
+			{
+				return null;
+			}
+			int end = current.length;
+			boolean terminated = current[end - 1] == '\n';
+			String line = new String(current, position, (terminated ? end - 1 : end) - position, defaultCharset());
+			position = end;
+			return terminated ? line.concat(lineSeparator()) : line;
+		}
+
+		/**
+		 * Skips the rest of the output, and waits for the command to complete.
+		 *
+		 * @return Returns the exit code of the command.
+		 */
+		private int finish() throws IOException
+		{
+			while (fill())
+			{
+				position = current.length;
+			}
+			return exitValue;
+		}
+
+		/**
+		 * Makes sure that there is something left of the current line.
+		 *
+		 * @return Returns {@code false} at the end of the output.
+		 */
+		private boolean fill() throws IOException
+		{
+			while (position == current.length)
+			{
+				if (finished)
+				{
+					return false;
+				}
+
+				byte[] line = session.readLine();
+				int index = session.indexOfMarker(line);
+				if (index >= 0)
+				{
+					exitValue = parseInt(new String(line, index + markerBytes.length, line.length - index - markerBytes.length, US_ASCII).trim());
+					session.awaitErrors();
+					finished = true;
+					current = Arrays.copyOf(line, index);
+				}
+				else
+				{
+					current = Arrays.copyOf(line, line.length + 1);
+					current[line.length] = '\n';
+				}
+				position = 0;
+			}
+			return true;
+		}
+	}
+}
@@ -18,9 +18,6 @@ package com.antonjohansson.svncommit.core.utils;
 import com.antonjohansson.svncommit.core.domain.FileStatus;
 import com.antonjohansson.svncommit.core.domain.ModifiedItem;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * Provides utility methods for converting SVN information.
  *
@@ -28,7 +25,9 @@ import java.util.regex.Pattern;
  */
 public final class Converter
 {
-	private static final Pattern PATTERN = Pattern.compile("^(M|A|D|\\?|!)\\s*(.*)$");
+	private static final int COLUMNS = 7;
+	private static final int LOCKED_COLUMN = 2;
+	private static final int TREE_CONFLICT_COLUMN = 6;
 
 	private Converter() {}
 
@@ -40,17 +39,54 @@ public final class Converter
 	 */
 	public static ModifiedItem modifiedItem(String statusLine)
 	{
-		Matcher matcher = PATTERN.matcher(statusLine);
+		char[] buffer = statusLine.toCharArray();
+		return modifiedItem(buffer, 0, buffer.length, null);
+	}
+
+	/**
+	 * Converts the status line within the given buffer to an {@link ModifiedItem}.
+	 * <p>
+	 * The line consists of the seven status columns of {@code svn status},
+	 * followed by the path. The only object that is created, apart from the
+	 * item itself, is the path.
+	 *
+	 * @param buffer The buffer that contains the status line.
+	 * @param start The index of the first character of the line.
+	 * @param end The index after the last character of the line, excluding line terminators.
+	 * @param changelist The changelist that the line belongs to, or {@code null}.
+	 * @return Returns the converted {@link ModifiedItem}.
+	 */
+	public static ModifiedItem modifiedItem(char[] buffer, int start, int end, String changelist)
+	{
+		if (end - start <= COLUMNS)
+		{
+			throw new RuntimeException("File did not match: " + new String(buffer, start, end - start));
+		}
 
-		if (!matcher.matches())
+		FileStatus status;
+		FileStatus propertyStatus;
+		try
 		{
-			throw new RuntimeException("File did not match: " + statusLine);
+			status = FileStatus.getStatus(buffer[start]);
+			propertyStatus = FileStatus.getStatus(buffer[start + 1]);
+		}
+		catch (IllegalArgumentException e)
+		{
+			throw new RuntimeException("File did not match: " + new String(buffer, start, end - start), e);
 		}
 
-		String status = matcher.group(1);
-		String fileName = matcher.group(2);
-		FileStatus fileStatus = FileStatus.getStatus(status.charAt(0));
+		// Paths start after the columns and a single separating space
+		int pathStart = start + COLUMNS;
+		if (buffer[pathStart] == ' ')
+		{
+			pathStart++;
+		}
 
-		return new ModifiedItem(fileName, fileStatus);
+		ModifiedItem item = new ModifiedItem(new String(buffer, pathStart, end - pathStart), status, propertyStatus);
+		item.setLocked(buffer[start + LOCKED_COLUMN] == 'L');
+		item.setTreeConflicted(buffer[start + TREE_CONFLICT_COLUMN] == 'C');
+		item.setChangelist(changelist);
+		item.setDoCommit(item.isCommitable());
+		return item;
 	}
 }
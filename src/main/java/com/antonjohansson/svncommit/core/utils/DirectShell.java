@@ -0,0 +1,48 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.utils;
+
+import java.io.File;
+
+import com.google.inject.Inject;
+
+/**
+ * Implementation of {@link Shell} that starts commands directly from their
+ * argument vector, without going through an intermediate bash script. This
+ * costs a single fork per command and no temporary files.
+ *
+ * @author Anton Johansson
+ */
+class DirectShell extends AbstractShell
+{
+	/**
+	 * Constructs a new {@link DirectShell} instance.
+	 *
+	 * @param path The path to execute commands in.
+	 */
+	@Inject
+	DirectShell(File path)
+	{
+		super(path);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected Process start(String... command)
+	{
+		return start(new ProcessBuilder(command));
+	}
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.utils;
+
+import com.antonjohansson.svncommit.core.concurrent.OperationScheduler;
+import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Implementation of {@link Subversion} that runs each operation of another
+ * implementation through the {@link OperationScheduler}, as either a reader
+ * or a writer of the working copy.
+ *
+ * @author Anton Johansson
+ */
+class ScheduledSubversion implements Subversion
+{
+	private final OperationScheduler scheduler;
+	private final Subversion subversion;
+
+	/**
+	 * Constructs a new {@link ScheduledSubversion} instance.
+	 *
+	 * @param scheduler The scheduler to run the operations with.
+	 * @param subversion The implementation that performs the operations.
+	 */
+	ScheduledSubversion(OperationScheduler scheduler, Subversion subversion)
+	{
+		this.scheduler = scheduler;
+		this.subversion = subversion;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Collection<ModifiedItem> getModifiedItems()
+	{
+		return scheduler.read(subversion::getModifiedItems);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void readModifiedItems(Consumer<ModifiedItem> consumer)
+	{
+		scheduler.read(() ->
+		{
+			subversion.readModifiedItems(consumer);
+			return null;
+		});
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Collection<ModifiedItem> getModifiedItems(Collection<String> directories)
+	{
+		return scheduler.read(() -> subversion.getModifiedItems(directories));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Collection<ModifiedItem> getModifiedItemsUnder(Collection<String> paths)
+	{
+		return scheduler.read(() -> subversion.getModifiedItemsUnder(paths));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void compare(String fileName)
+	{
+		scheduler.read(() ->
+		{
+			subversion.compare(fileName);
+			return null;
+		});
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void update(Consumer<String> onData, Consumer<Boolean> onComplete)
+	{
+		scheduler.write(onData, onComplete, subversion::update);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void commit(String message, Collection<String> filePaths, Consumer<String> onData, Consumer<Boolean> onComplete)
+	{
+		scheduler.write(onData, onComplete, (data, complete) -> subversion.commit(message, filePaths, data, complete));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void add(Collection<String> fileNames)
+	{
+		scheduler.write(() ->
+		{
+			subversion.add(fileNames);
+			return null;
+		});
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void delete(Collection<String> fileNames)
+	{
+		scheduler.write(() ->
+		{
+			subversion.delete(fileNames);
+			return null;
+		});
+	}
+}
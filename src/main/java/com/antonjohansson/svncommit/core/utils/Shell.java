@@ -15,10 +15,8 @@
  */
 package com.antonjohansson.svncommit.core.utils;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Collection;
 import java.util.function.Consumer;
 
 /**
@@ -29,38 +27,33 @@ import java.util.function.Consumer;
 public interface Shell
 {
 	/**
-	 * Executes given command lines in given directory.
+	 * Executes given command in given directory.
 	 *
-	 * @param commandLines The command lines to execute.
+	 * @param command The command to execute, as an argument vector, e. g. {@code "svn", "add", "file.txt"}.
 	 */
-	void execute(String... commandLines);
+	void execute(String... command);
 
 	/**
-	 * Executes given command lines in given directory, and applies a function
+	 * Executes given command in given directory, and applies a function
 	 * to the returned input stream and returns the value from that function.
+	 * The function reads the output while the command runs. If the command
+	 * exits with a non-zero exit code, an exception with its error output is
+	 * thrown instead.
 	 *
 	 * @param function The function to apply to the input stream.
-	 * @param commandLines The command lines to execute.
+	 * @param command The command to execute, as an argument vector.
 	 * @return Returns the result of the applied function.
 	 */
-	<R> R execute(ThrowingFunction<InputStream, R, IOException> function, String... commandLines);
+	<R> R execute(ThrowingFunction<InputStream, R, IOException> function, String... command);
 
 	/**
-	 * Executes given command lines in given directory, and pipes the output
+	 * Executes given command in given directory, and pipes the output
 	 * to the given {@code onData} consumer.
 	 *
 	 * @param onData The consumer that will accept output from the process stream.
 	 * @param onError The consumer that will accept errors from the process stream.
 	 * @param onComplete The task to execute when the process is complete.
-	 * @param commandLines The command lines to execute.
+	 * @param command The command to execute, as an argument vector.
 	 */
-	void executeAndPipeOutput(Consumer<String> onData, Consumer<String> onError, Consumer<Boolean> onComplete, String... commandLines);
-
-	/**
-	 * Creates a temporary file with the given lines.
-	 *
-	 * @param lines The lines to add to the file.
-	 * @return Returns the {@link File}.
-	 */
-	File getTemporaryFile(Collection<String> lines, String prefix);
+	void executeAndPipeOutput(Consumer<String> onData, Consumer<String> onError, Consumer<Boolean> onComplete, String... command);
 }
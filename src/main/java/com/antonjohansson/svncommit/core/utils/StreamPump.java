@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.utils;
+
+import static java.lang.System.lineSeparator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.function.Consumer;
+
+/**
+ * Pumps the output of a process stream, line by line, to a consumer.
+ * <p>
+ * Reading blocks until data is available, so a pump waiting for a slow
+ * process does not use any CPU. The stream is decoded with a single reader,
+ * which means that multi-byte characters split across reads are decoded
+ * correctly. Pumps that share the same lock never call their consumers at
+ * the same time.
+ *
+ * @author Anton Johansson
+ */
+class StreamPump extends Thread
+{
+	private final InputStream stream;
+	private final Charset charset;
+	private final Consumer<String> consumer;
+	private final Object lock;
+	private IOException exception;
+
+	/**
+	 * Constructs a new {@link StreamPump}.
+	 *
+	 * @param stream The stream to read from.
+	 * @param charset The charset to decode the stream with.
+	 * @param consumer The consumer that will accept each line, including the line separator.
+	 * @param lock The lock to hold while calling the consumer.
+	 */
+	StreamPump(InputStream stream, Charset charset, Consumer<String> consumer, Object lock)
+	{
+		super("svn-commit-stream-pump");
+		this.stream = stream;
+		this.charset = charset;
+		this.consumer = consumer;
+		this.lock = lock;
+		setDaemon(true);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void run()
+	{
+		try
+		{
+			pump();
+		}
+		catch (IOException e)
+		{
+			exception = e;
+		}
+	}
+
+	/**
+	 * Pumps the stream on the current thread, until the end of the stream is reached.
+	 *
+	 * @throws IOException Thrown if the stream could not be read.
+	 */
+	void pump() throws IOException
+	{
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, charset)))
+		{
+			String line;
+			while ((line = reader.readLine()) != null)
+			{
+				synchronized (lock)
+				{
+					consumer.accept(line.concat(lineSeparator()));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Waits for this pump to finish, if it was started as a thread.
+	 *
+	 * @throws IOException Thrown if the stream could not be read.
+	 * @throws InterruptedException Thrown if the current thread was interrupted while waiting.
+	 */
+	void await() throws IOException, InterruptedException
+	{
+		join();
+		if (exception != null)
+		{
+			throw exception;
+		}
+	}
+}
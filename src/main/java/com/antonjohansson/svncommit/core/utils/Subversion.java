@@ -34,6 +34,31 @@ public interface Subversion
 	 */
 	Collection<ModifiedItem> getModifiedItems();
 
+	/**
+	 * Reads all modified files, and passes each of them to the given consumer as soon as it is read.
+	 *
+	 * @param consumer The consumer that accepts each modified file.
+	 */
+	void readModifiedItems(Consumer<ModifiedItem> consumer);
+
+	/**
+	 * Gets a collection of the modified files within the given directories,
+	 * including the directories themselves but not their subdirectories' contents.
+	 *
+	 * @param directories The directories, relative to the path.
+	 * @return Returns the collection of modified files.
+	 */
+	Collection<ModifiedItem> getModifiedItems(Collection<String> directories);
+
+	/**
+	 * Gets a collection of the modified files at or below the given paths,
+	 * at any depth.
+	 *
+	 * @param paths The paths, relative to the path.
+	 * @return Returns the collection of modified files.
+	 */
+	Collection<ModifiedItem> getModifiedItemsUnder(Collection<String> paths);
+
 	/**
 	 * Brings up the Meld compare tool for the given file.
 	 *
@@ -60,16 +85,16 @@ public interface Subversion
 	void commit(String message, Collection<String> filePaths, Consumer<String> onData, Consumer<Boolean> onComplete);
 
 	/**
-	 * Adds the given file.
+	 * Adds the given files, in one operation.
 	 *
-	 * @param fileName The file name of the file to add.
+	 * @param fileNames The file names of the files to add.
 	 */
-	void add(String fileName);
+	void add(Collection<String> fileNames);
 
 	/**
-	 * Deletes the given file.
+	 * Deletes the given files, in one operation.
 	 *
-	 * @param fileName The file name of the file to delete.
+	 * @param fileNames The file names of the files to delete.
 	 */
-	void delete(String fileName);
+	void delete(Collection<String> fileNames);
 }
@@ -15,15 +15,18 @@
  */
 package com.antonjohansson.svncommit.core.utils;
 
+import com.antonjohansson.svncommit.core.config.Configuration;
 import com.antonjohansson.svncommit.core.domain.ModifiedItem;
 
 import static java.util.Arrays.asList;
-import static java.util.stream.Collectors.toList;
-import static org.apache.commons.io.IOUtils.readLines;
+import static java.util.Collections.emptyList;
 
-import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import com.google.inject.Inject;
 
@@ -34,73 +37,169 @@ import com.google.inject.Inject;
  */
 class SubversionImpl implements Subversion
 {
-	private static final String COMPARE_COMMAND_PATTERN = "meld '%F'";
+	private static final String MISSING_TARGETS = "E200009";
 
 	private final Shell shell;
+	private final Configuration configuration;
+	private final TemporaryFiles temporaryFiles;
 
 	/**
 	 * Constructs a new {@link SubversionImpl} instance.
 	 *
 	 * @param shell The shell to use.
+	 * @param configuration The configuration of the application.
+	 * @param temporaryFiles The temporary files, used to pass commit messages and paths.
 	 */
 	@Inject
-	SubversionImpl(Shell shell)
+	SubversionImpl(Shell shell, Configuration configuration, TemporaryFiles temporaryFiles)
 	{
 		this.shell = shell;
+		this.configuration = configuration;
+		this.temporaryFiles = temporaryFiles;
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public Collection<ModifiedItem> getModifiedItems()
 	{
-		return shell.execute(s -> readLines(s), "svn status")
-			.stream()
-			.map(Converter::modifiedItem)
-			.collect(toList());
+		List<ModifiedItem> items = new ArrayList<>();
+		status(emptyList(), items::add);
+		return items;
 	}
 
 	/** {@inheritDoc} */
 	@Override
-	public void compare(String fileName)
+	public void readModifiedItems(Consumer<ModifiedItem> consumer)
 	{
-		String command = COMPARE_COMMAND_PATTERN.replace("%F", fileName);
-		shell.execute(command);
+		status(emptyList(), consumer);
 	}
 
 	/** {@inheritDoc} */
 	@Override
-	public void update(Consumer<String> onData, Consumer<Boolean> onComplete)
+	public Collection<ModifiedItem> getModifiedItems(Collection<String> directories)
 	{
-		shell.executeAndPipeOutput(onData, onData, onComplete, "svn update");
+		return status(directories, "immediates");
 	}
 
 	/** {@inheritDoc} */
 	@Override
-	public void commit(String message, Collection<String> filePaths, Consumer<String> onData, Consumer<Boolean> onComplete)
+	public Collection<ModifiedItem> getModifiedItemsUnder(Collection<String> paths)
 	{
-		File temporaryFile = shell.getTemporaryFile(asList(message), "commit-message");
+		return status(paths, "infinity");
+	}
 
-		StringBuilder command = new StringBuilder("svn commit")
-			.append(" --file '")
-			.append(temporaryFile.getAbsolutePath())
-			.append("'");
+	private Collection<ModifiedItem> status(Collection<String> paths, String depth)
+	{
+		List<ModifiedItem> items = new ArrayList<>();
+		withTargets(paths, "status-targets", targets ->
+		{
+			try
+			{
+				status(asList("--depth", depth, "--targets", targets), items::add);
+			}
+			catch (RuntimeException e)
+			{
+				// Paths that were removed since they changed are reported as missing, but the rest is still read
+				if (e.getMessage() == null || !e.getMessage().contains(MISSING_TARGETS))
+				{
+					throw e;
+				}
+			}
+			return null;
+		});
+		return items;
+	}
 
-		filePaths.forEach(c -> command.append(" '").append(c).append("'"));
+	private void status(List<String> arguments, Consumer<ModifiedItem> consumer)
+	{
+		if (configuration.isTextStatusEnabled())
+		{
+			shell.execute(s ->
+			{
+				TextStatusReader.read(s, consumer);
+				return null;
+			}, command(asList("svn", "status"), arguments));
+			return;
+		}
+
+		shell.execute(s ->
+		{
+			XmlStatusReader.read(s, consumer);
+			return null;
+		}, command(asList("svn", "status", "--xml"), arguments));
+	}
 
-		shell.executeAndPipeOutput(onData, onData, onComplete, command.toString());
+	private String[] command(List<String> command, List<String> arguments)
+	{
+		List<String> result = new ArrayList<>(command);
+		result.addAll(arguments);
+		return result.toArray(new String[0]);
 	}
 
 	/** {@inheritDoc} */
 	@Override
-	public void add(String fileName)
+	public void compare(String fileName)
 	{
-		shell.execute("svn add '" + fileName + "'");
+		shell.execute("meld", fileName);
 	}
 
 	/** {@inheritDoc} */
 	@Override
-	public void delete(String fileName)
+	public void update(Consumer<String> onData, Consumer<Boolean> onComplete)
+	{
+		shell.executeAndPipeOutput(onData, onData, onComplete, "svn", "update");
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void commit(String message, Collection<String> filePaths, Consumer<String> onData, Consumer<Boolean> onComplete)
+	{
+		temporaryFiles.use(asList(message), "commit-message", messageFile -> withTargets(filePaths, "commit-targets", targets ->
+		{
+			shell.executeAndPipeOutput(onData, onData, onComplete, "svn", "commit", "--file", messageFile.getAbsolutePath(), "--targets", targets);
+			return null;
+		}));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void add(Collection<String> fileNames)
+	{
+		withTargets(fileNames, "add-targets", targets -> run("svn", "add", "--targets", targets));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void delete(Collection<String> fileNames)
+	{
+		withTargets(fileNames, "delete-targets", targets -> run("svn", "delete", "--targets", targets));
+	}
+
+	/**
+	 * Writes the given paths to a targets file, and applies the given
+	 * operation to the path of that file. The operation must not return
+	 * before {@code svn} has read the file.
+	 */
+	private <R> R withTargets(Collection<String> paths, String prefix, Function<String, R> operation)
+	{
+		return temporaryFiles.use(paths, prefix, targets -> operation.apply(targets.getAbsolutePath()));
+	}
+
+	/**
+	 * Runs a command whose output is only of interest when it fails. The error
+	 * output is read while the command runs, and becomes the message of the
+	 * exception that is thrown if the command fails.
+	 */
+	private Void run(String... command)
 	{
-		shell.execute("svn delete '" + fileName + "'");
+		StringBuilder errors = new StringBuilder();
+		AtomicBoolean success = new AtomicBoolean();
+		shell.executeAndPipeOutput(line -> {}, errors::append, success::set, command);
+		if (!success.get())
+		{
+			String message = errors.toString().trim();
+			throw new RuntimeException(message.isEmpty() ? "Could not run '" + String.join(" ", command) + "'" : message);
+		}
+		return null;
 	}
 }
@@ -0,0 +1,362 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.utils;
+
+import com.antonjohansson.svncommit.core.domain.FileStatus;
+import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+
+import static java.lang.System.lineSeparator;
+import static org.tmatesoft.svn.core.SVNDepth.EMPTY;
+import static org.tmatesoft.svn.core.SVNDepth.IMMEDIATES;
+import static org.tmatesoft.svn.core.SVNDepth.INFINITY;
+import static org.tmatesoft.svn.core.wc.SVNRevision.HEAD;
+import static org.tmatesoft.svn.core.wc.SVNRevision.WORKING;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.tmatesoft.svn.core.SVNCancelException;
+import org.tmatesoft.svn.core.SVNCommitInfo;
+import org.tmatesoft.svn.core.SVNDepth;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.internal.io.dav.DAVRepositoryFactory;
+import org.tmatesoft.svn.core.internal.io.fs.FSRepositoryFactory;
+import org.tmatesoft.svn.core.internal.io.svn.SVNRepositoryFactoryImpl;
+import org.tmatesoft.svn.core.wc.ISVNEventHandler;
+import org.tmatesoft.svn.core.wc.SVNClientManager;
+import org.tmatesoft.svn.core.wc.SVNEvent;
+import org.tmatesoft.svn.core.wc.SVNEventAction;
+import org.tmatesoft.svn.core.wc.SVNStatus;
+import org.tmatesoft.svn.core.wc.SVNStatusType;
+import org.tmatesoft.svn.core.wc.SVNWCUtil;
+
+import com.google.inject.Inject;
+
+/**
+ * Implementation of {@link Subversion} that uses SVNKit to perform all
+ * operations inside the JVM, without starting any {@code svn} processes.
+ *
+ * @author Anton Johansson
+ */
+class SvnKitSubversion implements Subversion
+{
+	static
+	{
+		DAVRepositoryFactory.setup();
+		SVNRepositoryFactoryImpl.setup();
+		FSRepositoryFactory.setup();
+	}
+
+	private final File path;
+	private final Shell shell;
+
+	/**
+	 * Constructs a new {@link SvnKitSubversion} instance.
+	 *
+	 * @param path The path of the working copy.
+	 * @param shell The shell, used to start the compare tool.
+	 */
+	@Inject
+	SvnKitSubversion(File path, Shell shell)
+	{
+		this.path = path.getAbsoluteFile();
+		this.shell = shell;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Collection<ModifiedItem> getModifiedItems()
+	{
+		List<ModifiedItem> items = new ArrayList<>();
+		readModifiedItems(items::add);
+		return items;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void readModifiedItems(Consumer<ModifiedItem> consumer)
+	{
+		SVNClientManager manager = manager(null);
+		try
+		{
+			manager.getStatusClient().doStatus(path, WORKING, INFINITY, false, false, false, false, status -> consumer.accept(modifiedItem(status)), null);
+		}
+		catch (SVNException e)
+		{
+			throw new RuntimeException("Could not get status", e);
+		}
+		finally
+		{
+			manager.dispose();
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Collection<ModifiedItem> getModifiedItems(Collection<String> directories)
+	{
+		return status(directories, IMMEDIATES);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Collection<ModifiedItem> getModifiedItemsUnder(Collection<String> paths)
+	{
+		return status(paths, INFINITY);
+	}
+
+	private Collection<ModifiedItem> status(Collection<String> paths, SVNDepth depth)
+	{
+		List<ModifiedItem> items = new ArrayList<>();
+		SVNClientManager manager = manager(null);
+		try
+		{
+			for (String path : paths)
+			{
+				manager.getStatusClient().doStatus(file(path), WORKING, depth, false, false, false, false, status -> items.add(modifiedItem(status)), null);
+			}
+			return items;
+		}
+		catch (SVNException e)
+		{
+			throw new RuntimeException("Could not get status", e);
+		}
+		finally
+		{
+			manager.dispose();
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void compare(String fileName)
+	{
+		shell.execute("meld", fileName);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void update(Consumer<String> onData, Consumer<Boolean> onComplete)
+	{
+		SVNClientManager manager = manager(new OutputHandler(onData));
+		try
+		{
+			manager.getUpdateClient().doUpdate(new File[] {path}, HEAD, INFINITY, false, false);
+			onComplete.accept(true);
+		}
+		catch (SVNException e)
+		{
+			onData.accept(e.getMessage() + lineSeparator());
+			onComplete.accept(false);
+		}
+		finally
+		{
+			manager.dispose();
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void commit(String message, Collection<String> filePaths, Consumer<String> onData, Consumer<Boolean> onComplete)
+	{
+		File[] files = filePaths.stream()
+				.map(this::file)
+				.toArray(File[]::new);
+
+		SVNClientManager manager = manager(new OutputHandler(onData));
+		try
+		{
+			SVNCommitInfo info = manager.getCommitClient().doCommit(files, false, message, null, null, false, false, EMPTY);
+			if (info.getErrorMessage() != null)
+			{
+				onData.accept(info.getErrorMessage().getFullMessage() + lineSeparator());
+			}
+			if (info.getNewRevision() >= 0)
+			{
+				onData.accept("Committed revision " + info.getNewRevision() + "." + lineSeparator());
+			}
+			onComplete.accept(info.getErrorMessage() == null);
+		}
+		catch (SVNException e)
+		{
+			onData.accept(e.getMessage() + lineSeparator());
+			onComplete.accept(false);
+		}
+		finally
+		{
+			manager.dispose();
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void add(Collection<String> fileNames)
+	{
+		File[] files = fileNames.stream()
+				.map(this::file)
+				.toArray(File[]::new);
+
+		SVNClientManager manager = manager(null);
+		try
+		{
+			manager.getWCClient().doAdd(files, false, false, false, INFINITY, false, false, false);
+		}
+		catch (SVNException e)
+		{
+			throw new RuntimeException("Could not add " + fileNames, e);
+		}
+		finally
+		{
+			manager.dispose();
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void delete(Collection<String> fileNames)
+	{
+		SVNClientManager manager = manager(null);
+		try
+		{
+			// SVNKit deletes one path at a time, but all within the same client
+			for (String fileName : fileNames)
+			{
+				manager.getWCClient().doDelete(file(fileName), false, false);
+			}
+		}
+		catch (SVNException e)
+		{
+			throw new RuntimeException("Could not delete " + fileNames, e);
+		}
+		finally
+		{
+			manager.dispose();
+		}
+	}
+
+	private SVNClientManager manager(ISVNEventHandler handler)
+	{
+		SVNClientManager manager = SVNClientManager.newInstance(SVNWCUtil.createDefaultOptions(true), SVNWCUtil.createDefaultAuthenticationManager());
+		// Every operation gets a handler, so that an interrupt cancels it
+		manager.setEventHandler(handler != null ? handler : new OutputHandler(line -> {}));
+		return manager;
+	}
+
+	private File file(String fileName)
+	{
+		return new File(path, fileName);
+	}
+
+	private String relativePath(File file)
+	{
+		Path relative = path.toPath().relativize(file.getAbsoluteFile().toPath());
+		String relativePath = relative.toString();
+		return relativePath.isEmpty() ? "." : relativePath;
+	}
+
+	private ModifiedItem modifiedItem(SVNStatus status)
+	{
+		ModifiedItem item = new ModifiedItem(relativePath(status.getFile()), fileStatus(status.getNodeStatus()), fileStatus(status.getPropertiesStatus()));
+		item.setLocked(status.isLocked());
+		item.setTreeConflicted(status.getTreeConflict() != null);
+		item.setChangelist(status.getChangelistName());
+		item.setDoCommit(item.isCommitable());
+		return item;
+	}
+
+	private static FileStatus fileStatus(SVNStatusType type)
+	{
+		return type == null ? FileStatus.NORMAL : FileStatus.getStatus(type.toString());
+	}
+
+	/**
+	 * Prints SVNKit events the way the {@code svn} command line client prints them.
+	 *
+	 * @author Anton Johansson
+	 */
+	private class OutputHandler implements ISVNEventHandler
+	{
+		private final Map<SVNEventAction, String> prefixes = new HashMap<>();
+		private final Consumer<String> onData;
+		private boolean updated;
+
+		private OutputHandler(Consumer<String> onData)
+		{
+			this.onData = onData;
+			prefixes.put(SVNEventAction.UPDATE_ADD, "A    ");
+			prefixes.put(SVNEventAction.UPDATE_DELETE, "D    ");
+			prefixes.put(SVNEventAction.UPDATE_UPDATE, "U    ");
+			prefixes.put(SVNEventAction.UPDATE_REPLACE, "R    ");
+			prefixes.put(SVNEventAction.UPDATE_EXISTS, "E    ");
+			prefixes.put(SVNEventAction.SKIP, "Skipped ");
+			prefixes.put(SVNEventAction.TREE_CONFLICT, "   C ");
+			prefixes.put(SVNEventAction.COMMIT_MODIFIED, "Sending        ");
+			prefixes.put(SVNEventAction.COMMIT_ADDED, "Adding         ");
+			prefixes.put(SVNEventAction.COMMIT_DELETED, "Deleting       ");
+			prefixes.put(SVNEventAction.COMMIT_REPLACED, "Replacing      ");
+		}
+
+		@Override
+		public void handleEvent(SVNEvent event, double progress)
+		{
+			SVNEventAction action = event.getAction();
+			if (action == SVNEventAction.UPDATE_COMPLETED)
+			{
+				String prefix = updated ? "Updated to revision " : "At revision ";
+				onData.accept(prefix + event.getRevision() + "." + lineSeparator());
+			}
+			else if (action == SVNEventAction.COMMIT_DELTA_SENT)
+			{
+				onData.accept("Transmitting file data ..." + lineSeparator());
+			}
+			else if (prefixes.containsKey(action) && event.getFile() != null)
+			{
+				String prefix = action == SVNEventAction.UPDATE_UPDATE ? updatePrefix(event) : prefixes.get(action);
+				updated = true;
+				onData.accept(prefix + relativePath(event.getFile()) + lineSeparator());
+			}
+		}
+
+		private String updatePrefix(SVNEvent event)
+		{
+			SVNStatusType contents = event.getContentsStatus();
+			if (contents == SVNStatusType.CONFLICTED)
+			{
+				return "C    ";
+			}
+			if (contents == SVNStatusType.MERGED)
+			{
+				return "G    ";
+			}
+			return "U    ";
+		}
+
+		@Override
+		public void checkCancelled() throws SVNCancelException
+		{
+			if (Thread.currentThread().isInterrupted())
+			{
+				throw new SVNCancelException();
+			}
+		}
+	}
+}
@@ -0,0 +1,178 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.utils;
+
+import static java.io.File.createTempFile;
+import static java.lang.System.lineSeparator;
+import static java.nio.charset.Charset.defaultCharset;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.apache.commons.io.output.CountingOutputStream;
+
+/**
+ * Creates the temporary files that are passed to {@code svn}, such as
+ * commit messages and targets files, and keeps track of them so that they
+ * are deleted when they are no longer used, or at the latest when the JVM
+ * exits. The files of all instances are deleted by a single shutdown hook.
+ *
+ * @author Anton Johansson
+ */
+class TemporaryFiles
+{
+	private static final Set<File> UNDELETED = ConcurrentHashMap.newKeySet();
+
+	static
+	{
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> UNDELETED.forEach(File::delete), "temporary-files"));
+	}
+
+	private final Set<File> files = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger createdFiles = new AtomicInteger();
+	private final AtomicLong writtenBytes = new AtomicLong();
+
+	/**
+	 * Creates a temporary file with the given lines, written in a single buffered pass.
+	 * The file must be {@link #delete(File) deleted} when it is no longer used.
+	 *
+	 * @param lines The lines to write to the file.
+	 * @param prefix The prefix of the file name, describing what the file is used for.
+	 * @return Returns the {@link File}.
+	 */
+	File create(Collection<String> lines, String prefix)
+	{
+		File file = null;
+		try
+		{
+			file = createTempFile("svn-commit-" + prefix + "-", ".tmp");
+			files.add(file);
+			UNDELETED.add(file);
+			createdFiles.incrementAndGet();
+
+			CountingOutputStream output = new CountingOutputStream(Files.newOutputStream(file.toPath()));
+			try (Writer writer = new BufferedWriter(new OutputStreamWriter(output, defaultCharset())))
+			{
+				for (String line : lines)
+				{
+					writer.write(line);
+					writer.write(lineSeparator());
+				}
+			}
+			finally
+			{
+				writtenBytes.addAndGet(output.getByteCount());
+			}
+			return file;
+		}
+		catch (IOException e)
+		{
+			delete(file);
+			throw new RuntimeException("Could not create temporary file", e);
+		}
+	}
+
+	/**
+	 * Creates a temporary file with the given lines, applies the given
+	 * operation to it, and deletes it when the operation is done.
+	 *
+	 * @param lines The lines to write to the file.
+	 * @param prefix The prefix of the file name, describing what the file is used for.
+	 * @param operation The operation to apply, which must be done with the file when it returns.
+	 * @return Returns the result of the operation.
+	 */
+	<R> R use(Collection<String> lines, String prefix, Function<File, R> operation)
+	{
+		File file = create(lines, prefix);
+		try
+		{
+			return operation.apply(file);
+		}
+		finally
+		{
+			delete(file);
+		}
+	}
+
+	/**
+	 * Deletes the given temporary file.
+	 *
+	 * @param file The file to delete, or {@code null}.
+	 */
+	void delete(File file)
+	{
+		if (file != null && files.remove(file))
+		{
+			file.delete();
+			UNDELETED.remove(file);
+		}
+	}
+
+	/**
+	 * Deletes all temporary files that have not been deleted yet.
+	 */
+	void deleteAll()
+	{
+		files.forEach(this::delete);
+	}
+
+	/**
+	 * Gets the number of temporary files that have been created.
+	 *
+	 * @return Returns the number of created files.
+	 */
+	int getCreatedFiles()
+	{
+		return createdFiles.get();
+	}
+
+	/**
+	 * Gets the number of bytes that have been written to temporary files.
+	 *
+	 * @return Returns the number of written bytes.
+	 */
+	long getWrittenBytes()
+	{
+		return writtenBytes.get();
+	}
+
+	/**
+	 * Gets the number of temporary files that currently exist.
+	 *
+	 * @return Returns the number of existing files.
+	 */
+	int getExistingFiles()
+	{
+		return files.size();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString()
+	{
+		return String.format("%d temporary files created (%d bytes), %d not deleted yet", getCreatedFiles(), getWrittenBytes(), getExistingFiles());
+	}
+}
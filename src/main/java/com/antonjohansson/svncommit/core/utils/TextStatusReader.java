@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.utils;
+
+import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+
+import static java.nio.charset.Charset.defaultCharset;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Reads the plain text output of {@code svn status}, one line at a time,
+ * straight from a character buffer.
+ *
+ * @author Anton Johansson
+ */
+public final class TextStatusReader
+{
+	private static final int BUFFER_SIZE = 8192;
+	private static final String CHANGELIST_PREFIX = "--- Changelist '";
+	private static final String EXTERNAL_PREFIX = "Performing status on external item";
+
+	private TextStatusReader() {}
+
+	/**
+	 * Reads the given status stream, and passes each entry to the given consumer as it is read.
+	 *
+	 * @param stream The stream containing the output of {@code svn status}.
+	 * @param consumer The consumer that will accept each entry.
+	 * @throws IOException Thrown if the stream could not be read.
+	 */
+	public static void read(InputStream stream, Consumer<ModifiedItem> consumer) throws IOException
+	{
+		read(new InputStreamReader(stream, defaultCharset()), consumer);
+	}
+
+	/**
+	 * Reads the given status reader, and passes each entry to the given consumer as it is read.
+	 *
+	 * @param reader The reader containing the output of {@code svn status}.
+	 * @param consumer The consumer that will accept each entry.
+	 * @throws IOException Thrown if the reader could not be read.
+	 */
+	public static void read(Reader reader, Consumer<ModifiedItem> consumer) throws IOException
+	{
+		char[] buffer = new char[BUFFER_SIZE];
+		int length = 0;
+		String changelist = null;
+
+		int read;
+		while ((read = reader.read(buffer, length, buffer.length - length)) != -1)
+		{
+			length += read;
+
+			int lineStart = 0;
+			for (int index = length - read; index < length; index++)
+			{
+				if (buffer[index] == '\n')
+				{
+					changelist = line(buffer, lineStart, index, changelist, consumer);
+					lineStart = index + 1;
+				}
+			}
+
+			// Keep the incomplete last line, and grow the buffer if a single line fills it
+			length -= lineStart;
+			System.arraycopy(buffer, lineStart, buffer, 0, length);
+			if (length == buffer.length)
+			{
+				buffer = Arrays.copyOf(buffer, buffer.length * 2);
+			}
+		}
+
+		if (length > 0)
+		{
+			line(buffer, 0, length, changelist, consumer);
+		}
+	}
+
+	private static String line(char[] buffer, int start, int end, String changelist, Consumer<ModifiedItem> consumer)
+	{
+		if (end > start && buffer[end - 1] == '\r')
+		{
+			end--;
+		}
+		if (end == start || isTreeConflictDescription(buffer, start, end) || startsWith(buffer, start, end, EXTERNAL_PREFIX))
+		{
+			return changelist;
+		}
+		if (startsWith(buffer, start, end, CHANGELIST_PREFIX))
+		{
+			int nameStart = start + CHANGELIST_PREFIX.length();
+			int nameEnd = end;
+			while (nameEnd > nameStart && buffer[nameEnd - 1] != '\'')
+			{
+				nameEnd--;
+			}
+			return new String(buffer, nameStart, Math.max(nameEnd - 1 - nameStart, 0));
+		}
+
+		consumer.accept(Converter.modifiedItem(buffer, start, end, changelist));
+		return changelist;
+	}
+
+	private static boolean isTreeConflictDescription(char[] buffer, int start, int end)
+	{
+		int index = start;
+		while (index < end && buffer[index] == ' ')
+		{
+			index++;
+		}
+		return index < end && buffer[index] == '>';
+	}
+
+	private static boolean startsWith(char[] buffer, int start, int end, String prefix)
+	{
+		if (end - start < prefix.length())
+		{
+			return false;
+		}
+		for (int index = 0; index < prefix.length(); index++)
+		{
+			if (buffer[start + index] != prefix.charAt(index))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -15,7 +15,22 @@
  */
 package com.antonjohansson.svncommit.core.utils;
 
+import com.antonjohansson.svncommit.core.concurrent.OperationScheduler;
+import com.antonjohansson.svncommit.core.concurrent.Worker;
+import com.antonjohansson.svncommit.core.config.Configuration;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import com.google.inject.AbstractModule;
+import com.google.inject.Provider;
+import com.google.inject.Provides;
 import com.google.inject.Singleton;
 
 /**
@@ -29,7 +44,67 @@ public class UtilityModule extends AbstractModule
 	@Override
 	protected void configure()
 	{
-		bind(Subversion.class).to(SubversionImpl.class).in(Singleton.class);
-		bind(Shell.class).to(Bash.class).in(Singleton.class);
+	}
+
+	/**
+	 * Provides the {@link Subversion} implementation, based on the configuration.
+	 */
+	@Provides
+	@Singleton
+	Subversion subversion(Configuration configuration, File path, OperationScheduler scheduler, Provider<SubversionImpl> subversionImpl, Provider<SvnKitSubversion> svnKitSubversion)
+	{
+		Subversion subversion = configuration.isSvnKitEnabled() ? svnKitSubversion.get() : subversionImpl.get();
+		subversion = configuration.isWcDbStatusEnabled() ? new WcDbSubversion(path, subversion) : subversion;
+		return new ScheduledSubversion(scheduler, subversion);
+	}
+
+	/**
+	 * Provides the {@link AsyncSubversion}, which runs the operations of the {@link Subversion} on its own threads.
+	 */
+	@Provides
+	@Singleton
+	AsyncSubversion asyncSubversion(Configuration configuration, Subversion subversion, Worker worker)
+	{
+		ExecutorService executor = newFixedThreadPool(configuration.getAsyncThreads(), daemonThreads("svn-commit-async-"));
+		ScheduledExecutorService timer = newSingleThreadScheduledExecutor(daemonThreads("svn-commit-timeout-"));
+		worker.onShutdown(executor::shutdownNow);
+		worker.onShutdown(timer::shutdownNow);
+		return new AsyncSubversionImpl(subversion, executor, timer);
+	}
+
+	private static ThreadFactory daemonThreads(String prefix)
+	{
+		AtomicInteger count = new AtomicInteger();
+		return runnable ->
+		{
+			Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * Provides the {@link TemporaryFiles}, whose statistics are printed when the worker shuts down, if enabled.
+	 */
+	@Provides
+	@Singleton
+	TemporaryFiles temporaryFiles(Configuration configuration, Worker worker)
+	{
+		TemporaryFiles temporaryFiles = new TemporaryFiles();
+		if (configuration.isStatisticsEnabled())
+		{
+			worker.onShutdown(() -> System.err.println(temporaryFiles));
+		}
+		return temporaryFiles;
+	}
+
+	/**
+	 * Provides the {@link Shell}, based on the configuration.
+	 */
+	@Provides
+	@Singleton
+	Shell shell(Configuration configuration, Provider<DirectShell> directShell, Provider<BashSession> bashSession)
+	{
+		return configuration.isShellSessionEnabled() ? bashSession.get() : directShell.get();
 	}
 }
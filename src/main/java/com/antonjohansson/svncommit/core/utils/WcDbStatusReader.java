@@ -0,0 +1,1118 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.utils;
+
+import com.antonjohansson.svncommit.core.domain.FileStatus;
+import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+
+import static com.antonjohansson.svncommit.core.domain.FileStatus.ADDED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.CONFLICTED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.DELETED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.MISSING;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.MODIFIED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.NORMAL;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.REPLACED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.UNVERSIONED;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyList;
+import static java.util.Comparator.comparing;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+import org.tmatesoft.sqljet.core.SqlJetException;
+import org.tmatesoft.sqljet.core.table.ISqlJetCursor;
+import org.tmatesoft.sqljet.core.table.ISqlJetTable;
+import org.tmatesoft.sqljet.core.table.SqlJetDb;
+
+/**
+ * Reads the status of a working copy directly from its {@code .svn/wc.db}
+ * database, which is opened read-only.
+ * <p>
+ * The recorded size and modification time of each file is compared with the
+ * file system, and only files where they differ are hashed and compared with
+ * the SHA-1 checksum of the pristine version. Files with keyword expansion
+ * or end-of-line translation may therefore be reported as modified when
+ * only their translated form differs.
+ * <p>
+ * The working copy is walked in parallel, with one fork/join task per
+ * versioned directory. Unversioned directories are never descended into.
+ * When only some directories are read, only their rows are looked up in
+ * the database, through its indexes, and only they are listed.
+ *
+ * @author Anton Johansson
+ */
+public final class WcDbStatusReader
+{
+	private static final String ADMINISTRATIVE_DIRECTORY = ".svn";
+	private static final String CHECKSUM_PREFIX = "$sha1$";
+	private static final String NODES_BY_PARENT = "I_NODES_PARENT";
+	private static final String ACTUALS_BY_PARENT = "I_ACTUAL_PARENT";
+	private static final List<String> DEFAULT_GLOBAL_IGNORES = Arrays.asList(
+			"*.o", "*.lo", "*.la", "*.al", ".libs", "*.so", "*.so.[0-9]*", "*.a", "*.pyc", "*.pyo", "__pycache__",
+			"*.rej", "*~", "#*#", ".#*", ".*.swp", ".DS_Store", "[Tt]humbs.db");
+
+	private final File root;
+	private final String prefix;
+	private final Map<String, Node> nodes = new TreeMap<>();
+	private final Map<String, Actual> actuals = new HashMap<>();
+	private final Set<String> lockedDirectories = new HashSet<>();
+	private final Map<String, List<Node>> children = new HashMap<>();
+	private final Map<String, PathMatcher> matchers = new ConcurrentHashMap<>();
+	private final ThreadLocal<Hasher> hashers = ThreadLocal.withInitial(Hasher::new);
+
+	private WcDbStatusReader(File root, String prefix)
+	{
+		this.root = root;
+		this.prefix = prefix;
+	}
+
+	/**
+	 * Reads the status of the given path, and passes each modified entry to the given consumer.
+	 *
+	 * @param path The path to read status for. This is either the root of a working copy, or a directory within one.
+	 * @param consumer The consumer that will accept each entry, with a path relative to the given path.
+	 * @throws IOException Thrown if the working copy database or the files could not be read.
+	 */
+	public static void read(File path, Consumer<ModifiedItem> consumer) throws IOException
+	{
+		read(path, consumer, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Reads the status of the given path using the given pool, and passes each modified entry to the given consumer.
+	 *
+	 * @param path The path to read status for. This is either the root of a working copy, or a directory within one.
+	 * @param consumer The consumer that will accept each entry, with a path relative to the given path.
+	 * @param pool The pool that walks the working copy.
+	 * @throws IOException Thrown if the working copy database or the files could not be read.
+	 */
+	public static void read(File path, Consumer<ModifiedItem> consumer, ForkJoinPool pool) throws IOException
+	{
+		WcDbStatusReader reader = open(path);
+		reader.load(null, false);
+		reader.emit(consumer, pool);
+	}
+
+	/**
+	 * Reads the status of the given directories and their immediate children,
+	 * and passes each modified entry to the given consumer. Directories that
+	 * are not under version control are skipped.
+	 *
+	 * @param path The path to read status for. This is either the root of a working copy, or a directory within one.
+	 * @param directories The directories to read, relative to the given path, where {@code "."} is the path itself.
+	 * @param consumer The consumer that will accept each entry, with a path relative to the given path.
+	 * @throws IOException Thrown if the working copy database or the files could not be read.
+	 */
+	public static void read(File path, Collection<String> directories, Consumer<ModifiedItem> consumer) throws IOException
+	{
+		WcDbStatusReader reader = open(path);
+		Set<String> relativePaths = new TreeSet<>();
+		for (String directory : directories)
+		{
+			relativePaths.add(reader.relativePath(directory));
+		}
+		reader.load(relativePaths, false);
+		reader.emit(relativePaths, consumer);
+	}
+
+	/**
+	 * Reads the status of the given paths and everything below them, and
+	 * passes each modified entry to the given consumer. Paths that are not
+	 * under version control are reported as unversioned if they exist.
+	 *
+	 * @param path The path to read status for. This is either the root of a working copy, or a directory within one.
+	 * @param paths The paths to read, relative to the given path, where {@code "."} is the path itself.
+	 * @param consumer The consumer that will accept each entry, with a path relative to the given path.
+	 * @throws IOException Thrown if the working copy database or the files could not be read.
+	 */
+	public static void readUnder(File path, Collection<String> paths, Consumer<ModifiedItem> consumer) throws IOException
+	{
+		WcDbStatusReader reader = open(path);
+		Set<String> relativePaths = new TreeSet<>();
+		for (String relativePath : paths)
+		{
+			relativePaths.add(reader.relativePath(relativePath));
+		}
+		reader.load(relativePaths.contains("") ? null : relativePaths, true);
+		reader.emitUnder(relativePaths, consumer, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Reads the versioned directories of the given path.
+	 *
+	 * @param path The path to read directories for. This is either the root of a working copy, or a directory within one.
+	 * @return Returns the directories, relative to the given path, where {@code "."} is the path itself.
+	 * @throws IOException Thrown if the working copy database could not be read.
+	 */
+	public static Set<String> readVersionedDirectories(File path) throws IOException
+	{
+		WcDbStatusReader reader = open(path);
+		reader.load(null, false);
+		return reader.versionedDirectories();
+	}
+
+	/**
+	 * Reads the versioned directories among the given paths and everything below them.
+	 *
+	 * @param path The path to read directories for. This is either the root of a working copy, or a directory within one.
+	 * @param paths The paths to read, relative to the given path, where {@code "."} is the path itself.
+	 * @return Returns the directories, relative to the given path, where {@code "."} is the path itself.
+	 * @throws IOException Thrown if the working copy database could not be read.
+	 */
+	public static Set<String> readVersionedDirectories(File path, Collection<String> paths) throws IOException
+	{
+		WcDbStatusReader reader = open(path);
+		Set<String> relativePaths = new TreeSet<>();
+		for (String relativePath : paths)
+		{
+			relativePaths.add(reader.relativePath(relativePath));
+		}
+		reader.load(relativePaths.contains("") ? null : relativePaths, true);
+		return reader.versionedDirectories();
+	}
+
+	private Set<String> versionedDirectories()
+	{
+		Set<String> directories = new TreeSet<>();
+		for (Node node : nodes.values())
+		{
+			Row row = node.working();
+			if (row.isPresent() && "dir".equals(row.kind))
+			{
+				directories.add(outputPath(node.relativePath));
+			}
+		}
+		return directories;
+	}
+
+	private static WcDbStatusReader open(File path) throws IOException
+	{
+		File directory = path.getAbsoluteFile();
+		String prefix = "";
+		while (!new File(new File(directory, ADMINISTRATIVE_DIRECTORY), "wc.db").isFile())
+		{
+			prefix = prefix.isEmpty() ? directory.getName() : directory.getName() + "/" + prefix;
+			directory = directory.getParentFile();
+			if (directory == null)
+			{
+				throw new IOException("Could not find a working copy database for " + path);
+			}
+		}
+
+		return new WcDbStatusReader(directory, prefix);
+	}
+
+	/**
+	 * Loads the database, either completely or for the given paths only. The
+	 * paths are loaded with either their children or all of their descendants.
+	 */
+	private void load(Set<String> paths, boolean deep) throws IOException
+	{
+		File database = new File(new File(root, ADMINISTRATIVE_DIRECTORY), "wc.db");
+		try
+		{
+			SqlJetDb db = SqlJetDb.open(database, false);
+			try
+			{
+				db.runReadTransaction(d ->
+				{
+					if (paths == null)
+					{
+						loadNodes(d);
+						loadActuals(d);
+					}
+					else
+					{
+						long workingCopyId = workingCopyId(d);
+						for (String path : paths)
+						{
+							loadNodes(d, workingCopyId, path, deep);
+							loadActuals(d, workingCopyId, path, deep);
+						}
+					}
+					loadLocks(d);
+					return null;
+				});
+				groupChildren();
+			}
+			finally
+			{
+				db.close();
+			}
+		}
+		catch (SqlJetException e)
+		{
+			throw new IOException("Could not read " + database, e);
+		}
+	}
+
+	private void loadNodes(SqlJetDb db) throws SqlJetException
+	{
+		ISqlJetCursor cursor = db.getTable("NODES").open();
+		try
+		{
+			while (!cursor.eof())
+			{
+				String relativePath = cursor.getString("local_relpath");
+				if (isWithinPrefix(relativePath))
+				{
+					Node node = nodes.computeIfAbsent(relativePath, Node::new);
+					node.add(new Row(cursor));
+				}
+				cursor.next();
+			}
+		}
+		finally
+		{
+			cursor.close();
+		}
+	}
+
+	private void loadActuals(SqlJetDb db) throws SqlJetException
+	{
+		ISqlJetCursor cursor = db.getTable("ACTUAL_NODE").open();
+		try
+		{
+			while (!cursor.eof())
+			{
+				String relativePath = cursor.getString("local_relpath");
+				if (isWithinPrefix(relativePath))
+				{
+					actuals.put(relativePath, new Actual(cursor));
+				}
+				cursor.next();
+			}
+		}
+		finally
+		{
+			cursor.close();
+		}
+	}
+
+	private long workingCopyId(SqlJetDb db) throws SqlJetException
+	{
+		ISqlJetCursor cursor = db.getTable("WCROOT").open();
+		try
+		{
+			return cursor.eof() ? 1 : cursor.getInteger("id");
+		}
+		finally
+		{
+			cursor.close();
+		}
+	}
+
+	/**
+	 * Loads the rows of the given path, and of either its children or all of its descendants.
+	 */
+	private void loadNodes(SqlJetDb db, long workingCopyId, String path, boolean deep) throws SqlJetException
+	{
+		ISqlJetTable table = db.getTable("NODES");
+		forEach(table.lookup(table.getPrimaryKeyIndexName(), workingCopyId, path), cursor ->
+		{
+			nodes.computeIfAbsent(path, Node::new).add(new Row(cursor));
+		});
+		forEach(below(table, NODES_BY_PARENT, workingCopyId, path, deep), cursor ->
+		{
+			String relativePath = cursor.getString("local_relpath");
+			if (relativePath.startsWith(path + "/"))
+			{
+				nodes.computeIfAbsent(relativePath, Node::new).add(new Row(cursor));
+			}
+		});
+	}
+
+	/**
+	 * Loads the actual state of the given path, and of either its children or all of its descendants.
+	 */
+	private void loadActuals(SqlJetDb db, long workingCopyId, String path, boolean deep) throws SqlJetException
+	{
+		ISqlJetTable table = db.getTable("ACTUAL_NODE");
+		forEach(table.lookup(table.getPrimaryKeyIndexName(), workingCopyId, path), cursor ->
+		{
+			actuals.put(path, new Actual(cursor));
+		});
+		forEach(below(table, ACTUALS_BY_PARENT, workingCopyId, path, deep), cursor ->
+		{
+			String relativePath = cursor.getString("local_relpath");
+			if (relativePath.startsWith(path + "/"))
+			{
+				actuals.put(relativePath, new Actual(cursor));
+			}
+		});
+	}
+
+	/**
+	 * Opens a cursor over the children of the given path, or over all of its
+	 * descendants, which are the range of paths that start with the path and
+	 * a slash. The character after the slash ends the range.
+	 */
+	private static ISqlJetCursor below(ISqlJetTable table, String byParent, long workingCopyId, String path, boolean deep) throws SqlJetException
+	{
+		if (!deep)
+		{
+			return table.lookup(byParent, workingCopyId, path);
+		}
+		return table.scope(table.getPrimaryKeyIndexName(), new Object[] {workingCopyId, path + "/"}, new Object[] {workingCopyId, path + "0"});
+	}
+
+	private static void forEach(ISqlJetCursor cursor, CursorConsumer consumer) throws SqlJetException
+	{
+		try
+		{
+			while (!cursor.eof())
+			{
+				consumer.accept(cursor);
+				cursor.next();
+			}
+		}
+		finally
+		{
+			cursor.close();
+		}
+	}
+
+	private void loadLocks(SqlJetDb db) throws SqlJetException
+	{
+		ISqlJetCursor cursor = db.getTable("WC_LOCK").open();
+		try
+		{
+			while (!cursor.eof())
+			{
+				lockedDirectories.add(cursor.getString("local_dir_relpath"));
+				cursor.next();
+			}
+		}
+		finally
+		{
+			cursor.close();
+		}
+	}
+
+	private void groupChildren()
+	{
+		for (Node node : nodes.values())
+		{
+			if (!node.relativePath.equals(prefix))
+			{
+				int separator = node.relativePath.lastIndexOf('/');
+				String parent = separator == -1 ? "" : node.relativePath.substring(0, separator);
+				children.computeIfAbsent(parent, p -> new ArrayList<>()).add(node);
+			}
+		}
+	}
+
+	private void emit(Consumer<ModifiedItem> consumer, ForkJoinPool pool) throws IOException
+	{
+		Node top = nodes.get(prefix);
+		if (top == null)
+		{
+			throw new IOException(outputPath(prefix) + " is not under version control");
+		}
+
+		List<ModifiedItem> items;
+		try
+		{
+			items = pool.invoke(new DirectoryTask(top));
+		}
+		catch (UncheckedIOException e)
+		{
+			throw e.getCause();
+		}
+
+		items.sort(comparing(ModifiedItem::getFileName));
+		items.forEach(consumer);
+	}
+
+	private void emit(Set<String> directories, Consumer<ModifiedItem> consumer)
+	{
+		Map<String, ModifiedItem> items = new TreeMap<>();
+		Consumer<ModifiedItem> collector = item -> items.put(item.getFileName(), item);
+		for (String relativePath : directories)
+		{
+			Node directory = nodes.get(relativePath);
+			if (directory == null)
+			{
+				continue;
+			}
+
+			List<ModifiedItem> found = new ArrayList<>();
+			add(found, directory);
+			for (Node child : children.getOrDefault(relativePath, emptyList()))
+			{
+				add(found, child);
+			}
+			Row row = directory.working();
+			if (row.isPresent() && "dir".equals(row.kind))
+			{
+				emitUnversioned(directory, found::add);
+			}
+			found.forEach(collector);
+		}
+		items.values().forEach(consumer);
+	}
+
+	private void emitUnder(Set<String> paths, Consumer<ModifiedItem> consumer, ForkJoinPool pool) throws IOException
+	{
+		Map<String, ModifiedItem> items = new TreeMap<>();
+		for (String relativePath : paths)
+		{
+			Node node = nodes.get(relativePath);
+			if (node == null)
+			{
+				if (file(relativePath).exists())
+				{
+					ModifiedItem item = new ModifiedItem(outputPath(relativePath), UNVERSIONED);
+					items.put(item.getFileName(), item);
+				}
+				continue;
+			}
+
+			try
+			{
+				pool.invoke(new DirectoryTask(node)).forEach(item -> items.put(item.getFileName(), item));
+			}
+			catch (UncheckedIOException e)
+			{
+				throw e.getCause();
+			}
+		}
+		items.values().forEach(consumer);
+	}
+
+	private void add(List<ModifiedItem> items, Node node)
+	{
+		Row row = node.working();
+		if (!row.isPresent() && !"base-deleted".equals(row.presence))
+		{
+			return;
+		}
+
+		try
+		{
+			ModifiedItem item = modifiedItem(node, row);
+			if (item != null)
+			{
+				items.add(item);
+			}
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private ModifiedItem modifiedItem(Node node, Row row) throws IOException
+	{
+		Actual actual = actuals.get(node.relativePath);
+		File file = file(node.relativePath);
+
+		FileStatus status = status(node, row, file);
+		FileStatus propertyStatus = actual != null && actual.hasModifiedProperties(row) ? MODIFIED : NORMAL;
+		if (actual != null && actual.textConflicted)
+		{
+			status = CONFLICTED;
+		}
+
+		boolean locked = lockedDirectories.contains(node.relativePath);
+		boolean treeConflicted = actual != null && actual.treeConflicted;
+		String changelist = actual != null ? actual.changelist : null;
+
+		if (status == NORMAL && propertyStatus == NORMAL && !locked && !treeConflicted && changelist == null)
+		{
+			return null;
+		}
+
+		ModifiedItem item = new ModifiedItem(outputPath(node.relativePath), status, propertyStatus);
+		item.setLocked(locked);
+		item.setTreeConflicted(treeConflicted);
+		item.setChangelist(changelist);
+		item.setDoCommit(item.isCommitable());
+		return item;
+	}
+
+	private FileStatus status(Node node, Row row, File file) throws IOException
+	{
+		if ("base-deleted".equals(row.presence))
+		{
+			return DELETED;
+		}
+		if (row.opDepth > 0 && row.opDepth == depth(node.relativePath))
+		{
+			return node.hasBase() ? REPLACED : ADDED;
+		}
+		if ("incomplete".equals(row.presence) || !file.exists())
+		{
+			return MISSING;
+		}
+		if ("file".equals(row.kind) && isModified(row, file))
+		{
+			return MODIFIED;
+		}
+		return NORMAL;
+	}
+
+	private boolean isModified(Row row, File file) throws IOException
+	{
+		if (row.translatedSize != null
+			&& row.lastModifiedTime != null
+			&& row.translatedSize == file.length()
+			&& row.lastModifiedTime / 1000 == file.lastModified())
+		{
+			return false;
+		}
+		if (row.checksum == null || !row.checksum.startsWith(CHECKSUM_PREFIX))
+		{
+			return true;
+		}
+		if (row.translatedSize != null && row.translatedSize != file.length())
+		{
+			return true;
+		}
+		return !row.checksum.substring(CHECKSUM_PREFIX.length()).equals(sha1(file));
+	}
+
+	private String sha1(File file) throws IOException
+	{
+		return hashers.get().sha1(file);
+	}
+
+	private void emitUnversioned(Node directory, Consumer<ModifiedItem> consumer)
+	{
+		String[] names = file(directory.relativePath).list();
+		if (names == null)
+		{
+			return;
+		}
+
+		List<String> ignores = new ArrayList<>(DEFAULT_GLOBAL_IGNORES);
+		ignores.addAll(ignores(directory));
+		for (String name : names)
+		{
+			String relativePath = directory.relativePath.isEmpty() ? name : directory.relativePath + "/" + name;
+			Node node = nodes.get(relativePath);
+			if (ADMINISTRATIVE_DIRECTORY.equals(name) || (node != null && node.working().isPresent()) || isIgnored(name, ignores))
+			{
+				continue;
+			}
+			if (node != null && "base-deleted".equals(node.working().presence))
+			{
+				continue;
+			}
+			consumer.accept(new ModifiedItem(outputPath(relativePath), UNVERSIONED));
+		}
+	}
+
+	private List<String> ignores(Node directory)
+	{
+		Actual actual = actuals.get(directory.relativePath);
+		byte[] properties = actual != null && actual.properties != null ? actual.properties : directory.working().properties;
+		String ignore = Skel.properties(properties).get("svn:ignore");
+
+		List<String> patterns = new ArrayList<>();
+		if (ignore != null)
+		{
+			for (String pattern : ignore.split("\\r?\\n"))
+			{
+				if (!pattern.trim().isEmpty())
+				{
+					patterns.add(pattern.trim());
+				}
+			}
+		}
+		return patterns;
+	}
+
+	private boolean isIgnored(String name, List<String> patterns)
+	{
+		for (String pattern : patterns)
+		{
+			PathMatcher matcher = matchers.computeIfAbsent(pattern, p -> FileSystems.getDefault().getPathMatcher("glob:" + p));
+			if (matcher.matches(Paths.get(name)))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isWithinPrefix(String relativePath)
+	{
+		return prefix.isEmpty()
+			|| relativePath.equals(prefix)
+			|| relativePath.startsWith(prefix + "/");
+	}
+
+	private String relativePath(String outputPath)
+	{
+		if (".".equals(outputPath))
+		{
+			return prefix;
+		}
+		return prefix.isEmpty() ? outputPath : prefix + "/" + outputPath;
+	}
+
+	private String outputPath(String relativePath)
+	{
+		String path = prefix.isEmpty() ? relativePath : relativePath.substring(Math.min(prefix.length() + 1, relativePath.length()));
+		return path.isEmpty() ? "." : path;
+	}
+
+	private File file(String relativePath)
+	{
+		return relativePath.isEmpty() ? root : new File(root, relativePath);
+	}
+
+	private static int depth(String relativePath)
+	{
+		if (relativePath.isEmpty())
+		{
+			return 0;
+		}
+		int depth = 1;
+		for (int index = 0; index < relativePath.length(); index++)
+		{
+			if (relativePath.charAt(index) == '/')
+			{
+				depth++;
+			}
+		}
+		return depth;
+	}
+
+	/**
+	 * Computes the status of a versioned directory and everything below it.
+	 * Subdirectories are forked before the files of the directory are
+	 * examined, so that idle workers can steal them.
+	 */
+	private class DirectoryTask extends RecursiveTask<List<ModifiedItem>>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Node directory;
+
+		private DirectoryTask(Node directory)
+		{
+			this.directory = directory;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		protected List<ModifiedItem> compute()
+		{
+			List<DirectoryTask> tasks = new ArrayList<>();
+			List<Node> files = new ArrayList<>();
+			for (Node child : children.getOrDefault(directory.relativePath, emptyList()))
+			{
+				if ("dir".equals(child.working().kind) || children.containsKey(child.relativePath))
+				{
+					DirectoryTask task = new DirectoryTask(child);
+					task.fork();
+					tasks.add(task);
+				}
+				else
+				{
+					files.add(child);
+				}
+			}
+
+			List<ModifiedItem> items = new ArrayList<>();
+			add(items, directory);
+			for (Node file : files)
+			{
+				add(items, file);
+			}
+
+			Row row = directory.working();
+			if (row.isPresent() && "dir".equals(row.kind))
+			{
+				emitUnversioned(directory, items::add);
+			}
+
+			for (DirectoryTask task : tasks)
+			{
+				items.addAll(task.join());
+			}
+			return items;
+		}
+	}
+
+	/**
+	 * Accepts the current row of a cursor.
+	 */
+	@FunctionalInterface
+	private interface CursorConsumer
+	{
+		void accept(ISqlJetCursor cursor) throws SqlJetException;
+	}
+
+	/**
+	 * Calculates SHA-1 checksums, reusing the digest and buffer of the current thread.
+	 */
+	private static class Hasher
+	{
+		private final byte[] buffer = new byte[64 * 1024];
+		private final MessageDigest digest;
+
+		private Hasher()
+		{
+			try
+			{
+				this.digest = MessageDigest.getInstance("SHA-1");
+			}
+			catch (NoSuchAlgorithmException e)
+			{
+				throw new RuntimeException(e);
+			}
+		}
+
+		private String sha1(File file) throws IOException
+		{
+			digest.reset();
+			try (InputStream stream = new FileInputStream(file))
+			{
+				int read;
+				while ((read = stream.read(buffer)) != -1)
+				{
+					digest.update(buffer, 0, read);
+				}
+			}
+
+			StringBuilder hex = new StringBuilder(40);
+			for (byte value : digest.digest())
+			{
+				hex.append(Character.forDigit((value >> 4) & 0xF, 16)).append(Character.forDigit(value & 0xF, 16));
+			}
+			return hex.toString();
+		}
+	}
+
+	/**
+	 * All layers of a single path in the {@code NODES} table.
+	 */
+	private static class Node
+	{
+		private final String relativePath;
+		private Row base;
+		private Row working;
+
+		private Node(String relativePath)
+		{
+			this.relativePath = relativePath;
+		}
+
+		private void add(Row row)
+		{
+			if (row.opDepth == 0)
+			{
+				base = row;
+			}
+			if (working == null || row.opDepth > working.opDepth)
+			{
+				working = row;
+			}
+		}
+
+		private Row working()
+		{
+			return working;
+		}
+
+		private boolean hasBase()
+		{
+			return base != null && base.isPresent();
+		}
+	}
+
+	/**
+	 * A single row in the {@code NODES} table.
+	 */
+	private static class Row
+	{
+		private final long opDepth;
+		private final String presence;
+		private final String kind;
+		private final String checksum;
+		private final Long translatedSize;
+		private final Long lastModifiedTime;
+		private final byte[] properties;
+
+		private Row(ISqlJetCursor cursor) throws SqlJetException
+		{
+			opDepth = cursor.getInteger("op_depth");
+			presence = cursor.getString("presence");
+			kind = cursor.getString("kind");
+			checksum = cursor.getString("checksum");
+			translatedSize = cursor.isNull("translated_size") ? null : cursor.getInteger("translated_size");
+			lastModifiedTime = cursor.isNull("last_mod_time") ? null : cursor.getInteger("last_mod_time");
+			properties = cursor.getBlobAsArray("properties");
+		}
+
+		private boolean isPresent()
+		{
+			return "normal".equals(presence) || "incomplete".equals(presence);
+		}
+	}
+
+	/**
+	 * A single row in the {@code ACTUAL_NODE} table.
+	 */
+	private static class Actual
+	{
+		private final byte[] properties;
+		private final String changelist;
+		private final boolean textConflicted;
+		private final boolean treeConflicted;
+
+		private Actual(ISqlJetCursor cursor) throws SqlJetException
+		{
+			properties = cursor.getBlobAsArray("properties");
+			changelist = cursor.getString("changelist");
+
+			// Working copies of format 29 and earlier use separate columns for conflicts
+			Set<String> conflicts = hasField(cursor, "conflict_data") ? Skel.conflictKinds(cursor.getBlobAsArray("conflict_data")) : new HashSet<>();
+			boolean oldTextConflict = hasField(cursor, "conflict_working") && !cursor.isNull("conflict_working");
+			boolean oldTreeConflict = hasField(cursor, "tree_conflict_data") && !cursor.isNull("tree_conflict_data");
+
+			textConflicted = oldTextConflict || conflicts.contains("text");
+			treeConflicted = oldTreeConflict || conflicts.contains("tree");
+		}
+
+		private boolean hasModifiedProperties(Row row)
+		{
+			return properties != null && !Arrays.equals(properties, row.properties);
+		}
+
+		private static boolean hasField(ISqlJetCursor cursor, String field)
+		{
+			try
+			{
+				cursor.getFieldType(field);
+				return true;
+			}
+			catch (SqlJetException e)
+			{
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Minimal parser of the "skel" format that Subversion uses to serialize properties and conflicts.
+	 */
+	static final class Skel
+	{
+		private final byte[] data;
+		private int position;
+
+		private Skel(byte[] data)
+		{
+			this.data = data;
+		}
+
+		/**
+		 * Parses a serialized property list, for example {@code (svn:ignore 5 *.tmp)}.
+		 *
+		 * @param data The serialized properties, or {@code null}.
+		 * @return Returns the properties by name.
+		 */
+		static Map<String, String> properties(byte[] data)
+		{
+			Map<String, String> properties = new HashMap<>();
+			if (data == null)
+			{
+				return properties;
+			}
+
+			Skel skel = new Skel(data);
+			skel.skipWhitespace();
+			if (skel.position >= data.length || data[skel.position] != '(')
+			{
+				return properties;
+			}
+			skel.position++;
+
+			while (true)
+			{
+				skel.skipWhitespace();
+				if (skel.position >= data.length || data[skel.position] == ')')
+				{
+					return properties;
+				}
+				String name = skel.atom();
+				skel.skipWhitespace();
+				String value = skel.atom();
+				properties.put(name, value);
+			}
+		}
+
+		/**
+		 * Parses a serialized conflict, for example
+		 * {@code ((update ...) ((text (...) ...) (tree () ...)))}, which
+		 * holds the operation that caused it, followed by a list of conflicts
+		 * that each start with their kind.
+		 *
+		 * @param data The serialized conflict, or {@code null}.
+		 * @return Returns the kinds of the conflicts, such as {@code text}, {@code prop} and {@code tree}.
+		 */
+		static Set<String> conflictKinds(byte[] data)
+		{
+			Set<String> kinds = new HashSet<>();
+			if (data == null)
+			{
+				return kinds;
+			}
+
+			Skel skel = new Skel(data);
+			if (!skel.enterList())
+			{
+				return kinds;
+			}
+			skel.skipElement();
+			if (!skel.enterList())
+			{
+				return kinds;
+			}
+
+			while (true)
+			{
+				skel.skipWhitespace();
+				if (skel.position >= data.length || data[skel.position] == ')')
+				{
+					return kinds;
+				}
+				if (skel.enterList())
+				{
+					skel.skipWhitespace();
+					kinds.add(skel.atom());
+					skel.skipList();
+				}
+				else
+				{
+					skel.skipElement();
+				}
+			}
+		}
+
+		/**
+		 * Moves past the opening parenthesis of a list, if the next element is a list.
+		 */
+		private boolean enterList()
+		{
+			skipWhitespace();
+			if (position < data.length && data[position] == '(')
+			{
+				position++;
+				return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Skips the rest of a list that has been entered, including its closing parenthesis.
+		 */
+		private void skipList()
+		{
+			while (true)
+			{
+				skipWhitespace();
+				if (position >= data.length)
+				{
+					return;
+				}
+				if (data[position] == ')')
+				{
+					position++;
+					return;
+				}
+				skipElement();
+			}
+		}
+
+		private void skipElement()
+		{
+			if (enterList())
+			{
+				skipList();
+			}
+			else
+			{
+				atom();
+			}
+		}
+
+		private String atom()
+		{
+			int start = position;
+			if (position < data.length && Character.isDigit(data[position]))
+			{
+				while (position < data.length && Character.isDigit(data[position]))
+				{
+					position++;
+				}
+				if (position < data.length && data[position] == ' ')
+				{
+					int length = Integer.parseInt(new String(data, start, position - start, UTF_8));
+					position++;
+					String value = new String(data, position, Math.min(length, data.length - position), UTF_8);
+					position += length;
+					return value;
+				}
+			}
+			while (position < data.length && !isWhitespace(data[position]) && data[position] != '(' && data[position] != ')')
+			{
+				position++;
+			}
+			return new String(data, start, position - start, UTF_8);
+		}
+
+		private void skipWhitespace()
+		{
+			while (position < data.length && isWhitespace(data[position]))
+			{
+				position++;
+			}
+		}
+
+		private static boolean isWhitespace(byte value)
+		{
+			return value == ' ' || value == '\n' || value == '\t' || value == '\r' || value == '\f';
+		}
+	}
+}
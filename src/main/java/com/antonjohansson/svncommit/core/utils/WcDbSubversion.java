@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.utils;
+
+import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Implementation of {@link Subversion} that reads the status directly from
+ * the working copy database, and delegates all other operations.
+ *
+ * @author Anton Johansson
+ */
+class WcDbSubversion implements Subversion
+{
+	private final File path;
+	private final Subversion subversion;
+
+	/**
+	 * Constructs a new {@link WcDbSubversion} instance.
+	 *
+	 * @param path The path of the working copy.
+	 * @param subversion The implementation to delegate all operations but status to.
+	 */
+	WcDbSubversion(File path, Subversion subversion)
+	{
+		this.path = path;
+		this.subversion = subversion;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Collection<ModifiedItem> getModifiedItems()
+	{
+		List<ModifiedItem> items = new ArrayList<>();
+		readModifiedItems(items::add);
+		return items;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void readModifiedItems(Consumer<ModifiedItem> consumer)
+	{
+		try
+		{
+			WcDbStatusReader.read(path, consumer);
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException("Could not read status", e);
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Collection<ModifiedItem> getModifiedItems(Collection<String> directories)
+	{
+		List<ModifiedItem> items = new ArrayList<>();
+		try
+		{
+			WcDbStatusReader.read(path, directories, items::add);
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException("Could not read status", e);
+		}
+		return items;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Collection<ModifiedItem> getModifiedItemsUnder(Collection<String> paths)
+	{
+		List<ModifiedItem> items = new ArrayList<>();
+		try
+		{
+			WcDbStatusReader.readUnder(path, paths, items::add);
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException("Could not read status", e);
+		}
+		return items;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void compare(String fileName)
+	{
+		subversion.compare(fileName);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void update(Consumer<String> onData, Consumer<Boolean> onComplete)
+	{
+		subversion.update(onData, onComplete);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void commit(String message, Collection<String> filePaths, Consumer<String> onData, Consumer<Boolean> onComplete)
+	{
+		subversion.commit(message, filePaths, onData, onComplete);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void add(Collection<String> fileNames)
+	{
+		subversion.add(fileNames);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void delete(Collection<String> fileNames)
+	{
+		subversion.delete(fileNames);
+	}
+}
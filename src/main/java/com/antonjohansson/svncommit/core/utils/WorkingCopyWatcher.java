@@ -0,0 +1,448 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.utils;
+
+import com.antonjohansson.svncommit.core.concurrent.Worker;
+
+import static com.antonjohansson.svncommit.core.concurrent.Lane.STATUS;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+import com.google.inject.Inject;
+
+/**
+ * Watches the directories of a working copy, and reports which directories
+ * have changed since the status was last read.
+ * <p>
+ * Events are collected until no new events have arrived during the debounce
+ * window. If events are lost, a full scan is requested instead. If the
+ * directories cannot be watched at all, for example when the system runs out
+ * of watches, the watcher stops and callers must fall back to full scans.
+ * <p>
+ * Only versioned directories are watched, so that unversioned and ignored
+ * subtrees, such as build output, do not use up watches. Changes to them
+ * are only reported for their versioned parent. The roots of the skipped
+ * subtrees are remembered, and when the working copy database changes, only
+ * those are looked up again, so that directories that become versioned are
+ * watched and reported without walking the whole working copy. If the
+ * database cannot be read, all directories are watched.
+ * <p>
+ * Changes to the database that do not touch any files, such as a commit by
+ * another client, are not reported on their own, since most of them are
+ * made by this application, which refreshes what it changes. A
+ * {@link #flush() flush} requests a full scan instead, if the database has
+ * changed since the last one.
+ *
+ * @author Anton Johansson
+ */
+public class WorkingCopyWatcher
+{
+	private static final long DEBOUNCE_MILLISECONDS = 300;
+	private static final String ADMINISTRATIVE_DIRECTORY = ".svn";
+	private static final String DATABASE = "wc.db";
+
+	private final Path path;
+	private final Worker worker;
+	private final Map<WatchKey, Path> directories = new HashMap<>();
+	private final Set<String> dirty = new TreeSet<>();
+	private final Set<Path> unversioned = new HashSet<>();
+	private volatile Set<String> versioned;
+	private WatchService service;
+	private Consumer<Collection<String>> onChange;
+	private Runnable onFullScan;
+	private boolean fullScan;
+	private boolean databaseChanged;
+	private boolean databaseScanned = true;
+
+	/**
+	 * Constructs a new {@link WorkingCopyWatcher}.
+	 *
+	 * @param path The path of the working copy.
+	 * @param worker The worker, which closes the watcher when it is shut down.
+	 */
+	@Inject
+	WorkingCopyWatcher(File path, Worker worker)
+	{
+		this.path = path.getAbsoluteFile().toPath();
+		this.worker = worker;
+		worker.onShutdown(this::close);
+	}
+
+	/**
+	 * Starts watching the working copy.
+	 *
+	 * @param onChange The consumer that accepts the changed directories, relative to the working copy.
+	 * @param onFullScan The task to run when a full scan is required.
+	 * @return Returns {@code true} if the working copy is watched, or {@code false} if it could not be watched.
+	 */
+	public synchronized boolean start(Consumer<Collection<String>> onChange, Runnable onFullScan)
+	{
+		this.onChange = onChange;
+		this.onFullScan = onFullScan;
+		try
+		{
+			service = FileSystems.getDefault().newWatchService();
+			versioned = readVersionedDirectories();
+			register(path);
+			registerDirectory(path.resolve(ADMINISTRATIVE_DIRECTORY));
+		}
+		catch (IOException e)
+		{
+			close();
+			return false;
+		}
+
+		Thread thread = new Thread(this::watch, "svn-commit-watcher");
+		thread.setDaemon(true);
+		thread.start();
+		return true;
+	}
+
+	/**
+	 * Gets whether or not the working copy is watched.
+	 *
+	 * @return Returns {@code true} if the working copy is watched.
+	 */
+	public synchronized boolean isWatching()
+	{
+		return service != null;
+	}
+
+	/**
+	 * Reports the changes that have been collected so far, without waiting
+	 * for the debounce window. If the working copy database has changed since
+	 * the last full scan, a full scan is requested instead. The changes are
+	 * reported on a worker thread, so this may be called from any thread.
+	 */
+	public void flush()
+	{
+		worker.submit(STATUS, handle -> deliver(true));
+	}
+
+	/**
+	 * Stops watching the working copy.
+	 */
+	public synchronized void close()
+	{
+		if (service != null)
+		{
+			try
+			{
+				service.close();
+			}
+			catch (IOException e)
+			{
+				// Nothing to do, the service is discarded anyway
+			}
+			service = null;
+			directories.clear();
+			unversioned.clear();
+		}
+	}
+
+	private void watch()
+	{
+		WatchService service;
+		synchronized (this)
+		{
+			service = this.service;
+		}
+
+		try
+		{
+			while (true)
+			{
+				WatchKey key = hasPendingChanges()
+					? service.poll(DEBOUNCE_MILLISECONDS, MILLISECONDS)
+					: service.take();
+
+				if (key == null)
+				{
+					deliver(false);
+				}
+				else
+				{
+					process(key);
+				}
+			}
+		}
+		catch (ClosedWatchServiceException | InterruptedException e)
+		{
+			// The watcher is closed
+		}
+	}
+
+	private void process(WatchKey key)
+	{
+		Path directory;
+		synchronized (this)
+		{
+			directory = directories.get(key);
+		}
+		if (directory == null)
+		{
+			// The key was cancelled when the watcher was closed, or its directory was removed
+			key.cancel();
+			return;
+		}
+
+		for (WatchEvent<?> event : key.pollEvents())
+		{
+			if (event.kind() == OVERFLOW)
+			{
+				requestFullScan();
+				continue;
+			}
+
+			Path child = directory.resolve((Path) event.context());
+			if (directory.getFileName().toString().equals(ADMINISTRATIVE_DIRECTORY))
+			{
+				if (child.getFileName().toString().equals(DATABASE))
+				{
+					markDatabaseChanged();
+				}
+				continue;
+			}
+
+			markDirty(directory);
+			if (event.kind() == ENTRY_CREATE && Files.isDirectory(child) && !isAdministrativeDirectory(child))
+			{
+				try
+				{
+					register(child);
+				}
+				catch (IOException e)
+				{
+					close();
+					requestFullScan();
+					deliver(false);
+					return;
+				}
+			}
+		}
+
+		if (!key.reset())
+		{
+			synchronized (this)
+			{
+				directories.remove(key);
+			}
+		}
+	}
+
+	private void register(Path start) throws IOException
+	{
+		Files.walkFileTree(start, new SimpleFileVisitor<Path>()
+		{
+			@Override
+			public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) throws IOException
+			{
+				if (isAdministrativeDirectory(directory))
+				{
+					return FileVisitResult.SKIP_SUBTREE;
+				}
+				if (!isVersioned(directory))
+				{
+					markUnversioned(directory);
+					return FileVisitResult.SKIP_SUBTREE;
+				}
+				registerDirectory(directory);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	private synchronized void registerDirectory(Path directory) throws IOException
+	{
+		if (service == null)
+		{
+			throw new IOException("The watcher is closed");
+		}
+		WatchKey key = directory.register(service, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+		directories.put(key, directory);
+	}
+
+	private Set<String> readVersionedDirectories()
+	{
+		try
+		{
+			return WcDbStatusReader.readVersionedDirectories(path.toFile());
+		}
+		catch (IOException e)
+		{
+			return null;
+		}
+	}
+
+	private boolean isVersioned(Path directory)
+	{
+		Set<String> versioned = this.versioned;
+		return versioned == null || versioned.contains(relativePath(directory));
+	}
+
+	private boolean isAdministrativeDirectory(Path directory)
+	{
+		return directory.getFileName() != null && directory.getFileName().toString().equals(ADMINISTRATIVE_DIRECTORY);
+	}
+
+	private synchronized void markDirty(Path directory)
+	{
+		dirty.add(relativePath(directory));
+	}
+
+	private synchronized void markUnversioned(Path directory)
+	{
+		unversioned.add(directory);
+	}
+
+	private synchronized boolean unmarkUnversioned(Path directory)
+	{
+		return unversioned.remove(directory);
+	}
+
+	private synchronized void markDatabaseChanged()
+	{
+		databaseChanged = true;
+		databaseScanned = false;
+	}
+
+	private String relativePath(Path directory)
+	{
+		String relativePath = path.relativize(directory).toString().replace(File.separatorChar, '/');
+		return relativePath.isEmpty() ? "." : relativePath;
+	}
+
+	private synchronized void requestFullScan()
+	{
+		fullScan = true;
+	}
+
+	private synchronized boolean hasPendingChanges()
+	{
+		return fullScan || databaseChanged || !dirty.isEmpty();
+	}
+
+	private void deliver(boolean flush)
+	{
+		Collection<String> changed;
+		boolean scan;
+		boolean database;
+		synchronized (this)
+		{
+			changed = new TreeSet<>(dirty);
+			scan = fullScan || (flush && !databaseScanned);
+			database = databaseChanged;
+			dirty.clear();
+			fullScan = false;
+			databaseChanged = false;
+			if (scan)
+			{
+				databaseScanned = true;
+			}
+		}
+
+		if (database)
+		{
+			changed.addAll(watchNewlyVersionedDirectories());
+		}
+
+		if (scan)
+		{
+			onFullScan.run();
+		}
+		else if (!changed.isEmpty())
+		{
+			onChange.accept(changed);
+		}
+	}
+
+	/**
+	 * Watches the skipped directories that have become versioned, and returns them along with their parents.
+	 */
+	private Collection<String> watchNewlyVersionedDirectories()
+	{
+		List<Path> candidates;
+		synchronized (this)
+		{
+			candidates = new ArrayList<>(unversioned);
+		}
+		if (versioned == null || candidates.isEmpty())
+		{
+			return new ArrayList<>();
+		}
+
+		Collection<String> changed = new TreeSet<>();
+		try
+		{
+			Collection<String> paths = new ArrayList<>();
+			candidates.forEach(candidate -> paths.add(relativePath(candidate)));
+			Set<String> newlyVersioned = WcDbStatusReader.readVersionedDirectories(path.toFile(), paths);
+			if (newlyVersioned.isEmpty())
+			{
+				return changed;
+			}
+
+			Set<String> versioned = new HashSet<>(this.versioned);
+			versioned.addAll(newlyVersioned);
+			this.versioned = versioned;
+
+			for (Path candidate : candidates)
+			{
+				if (!Files.isDirectory(candidate))
+				{
+					unmarkUnversioned(candidate);
+				}
+				else if (isVersioned(candidate) && unmarkUnversioned(candidate))
+				{
+					register(candidate);
+					changed.add(relativePath(candidate));
+					changed.add(relativePath(candidate.getParent()));
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			// Callers fall back to full scans when the working copy is no longer watched
+			close();
+		}
+		return changed;
+	}
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.utils;
+
+import com.antonjohansson.svncommit.core.domain.FileStatus;
+import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads the output of {@code svn status --xml}, one entry at a time, without
+ * buffering the whole output.
+ *
+ * @author Anton Johansson
+ */
+public final class XmlStatusReader
+{
+	private static final XMLInputFactory FACTORY = XMLInputFactory.newInstance();
+
+	private XmlStatusReader() {}
+
+	/**
+	 * Reads the given status stream, and passes each entry to the given consumer as it is read.
+	 *
+	 * @param stream The stream containing the output of {@code svn status --xml}.
+	 * @param consumer The consumer that will accept each entry.
+	 * @throws IOException Thrown if the stream could not be read or parsed.
+	 */
+	public static void read(InputStream stream, Consumer<ModifiedItem> consumer) throws IOException
+	{
+		try
+		{
+			XMLStreamReader reader = FACTORY.createXMLStreamReader(stream);
+			try
+			{
+				read(reader, consumer);
+			}
+			finally
+			{
+				reader.close();
+			}
+		}
+		catch (XMLStreamException e)
+		{
+			throw new IOException("Could not parse status", e);
+		}
+	}
+
+	private static void read(XMLStreamReader reader, Consumer<ModifiedItem> consumer) throws XMLStreamException
+	{
+		String changelist = null;
+		String path = null;
+
+		while (reader.hasNext())
+		{
+			int event = reader.next();
+			if (event == START_ELEMENT)
+			{
+				switch (reader.getLocalName())
+				{
+					case "changelist":
+						changelist = reader.getAttributeValue(null, "name");
+						break;
+					case "entry":
+						path = reader.getAttributeValue(null, "path");
+						break;
+					case "wc-status":
+						consumer.accept(modifiedItem(reader, path, changelist));
+						break;
+					default:
+						break;
+				}
+			}
+			else if (event == END_ELEMENT && "changelist".equals(reader.getLocalName()))
+			{
+				changelist = null;
+			}
+		}
+	}
+
+	private static ModifiedItem modifiedItem(XMLStreamReader reader, String path, String changelist)
+	{
+		FileStatus status = FileStatus.getStatus(attribute(reader, "item", "none"));
+		FileStatus propertyStatus = FileStatus.getStatus(attribute(reader, "props", "none"));
+
+		ModifiedItem item = new ModifiedItem(path, status, propertyStatus);
+		item.setLocked(Boolean.parseBoolean(reader.getAttributeValue(null, "wc-locked")));
+		item.setTreeConflicted(Boolean.parseBoolean(reader.getAttributeValue(null, "tree-conflicted")));
+		item.setChangelist(changelist);
+		item.setDoCommit(item.isCommitable());
+		return item;
+	}
+
+	private static String attribute(XMLStreamReader reader, String name, String defaultValue)
+	{
+		String value = reader.getAttributeValue(null, name);
+		return value == null ? defaultValue : value;
+	}
+}
@@ -15,12 +15,23 @@
  */
 package com.antonjohansson.svncommit.core.view;
 
+import static java.util.stream.Collectors.toList;
+import static javafx.application.Platform.runLater;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
 import com.google.common.base.Predicate;
 
 import javafx.scene.control.MenuItem;
 
 /**
  * Abstract skeleton for context menu items for table view rows in the application.
+ * <p>
+ * Actions run in the background, and are completed back on the JavaFX
+ * application thread, so that the user interface never waits for them.
  *
  * @param <T> The type of of items that the table view holds.
  *
@@ -39,31 +50,58 @@ public abstract class AbstractRowContextMenuItem<T> extends MenuItem
 	}
 
 	/**
-	 * Sets the actual item for this menu item.
+	 * Sets the actual items for this menu item. The menu item is enabled if
+	 * any of the items match its predicate, and acts on those that do.
 	 *
-	 * @param item The item.
-	 * @param refreshCommand The command used to refresh the commit view.
+	 * @param items The items, typically the selected rows.
+	 * @param refreshCommand The command used to refresh the given items in the commit view.
 	 */
-	public final void configure(T item, Runnable refreshCommand)
+	public final void configure(Collection<T> items, Consumer<Collection<T>> refreshCommand)
 	{
-		boolean enabled = predicate().apply(item);
-		setDisable(!enabled);
-		setOnAction(e -> action(item, refreshCommand));
+		List<T> matchingItems = items.stream()
+				.filter(item -> item != null && predicate().apply(item))
+				.collect(toList());
+
+		setDisable(matchingItems.isEmpty());
+		setOnAction(e -> action(matchingItems).whenComplete((result, failure) -> runLater(() ->
+		{
+			// The items are refreshed either way, since a failed action may still have changed some of them
+			if (failure == null)
+			{
+				completed(matchingItems);
+			}
+			refreshCommand.accept(matchingItems);
+			if (failure != null)
+			{
+				throw new RuntimeException("Could not perform '" + getText() + "'", failure);
+			}
+		})));
 	}
 
 	/**
 	 * Gets the predicate that determines whether or not this menu item
-	 * should be enabled for the current row.
+	 * should be enabled for an item.
 	 *
 	 * @return Returns the predicate.
 	 */
 	protected abstract Predicate<T> predicate();
 
 	/**
-	 * Performs the action when clicking on the item.
+	 * Starts the action when clicking on the menu item. This is called on the
+	 * JavaFX application thread, and must not block.
 	 *
-	 * @param item The item that is clicked.
-	 * @param refreshCommand The command that is used to refresh the commit view.
+	 * @param items The items to act on, which all match the predicate.
+	 * @return Returns a future that completes when the action is done.
 	 */
-	protected abstract void action(T item, Runnable refreshCommand);
+	protected abstract CompletableFuture<?> action(List<T> items);
+
+	/**
+	 * Updates the items after the action has completed successfully, on the
+	 * JavaFX application thread. The items are refreshed afterwards.
+	 *
+	 * @param items The items that were acted on.
+	 */
+	protected void completed(List<T> items)
+	{
+	}
 }
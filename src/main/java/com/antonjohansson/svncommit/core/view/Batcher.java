@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.view;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javafx.application.Platform;
+
+/**
+ * Collects items that are produced on a background thread, and hands them
+ * to the JavaFX application thread in batches.
+ * <p>
+ * At most one update of the JavaFX application thread is pending at any
+ * time. Items that arrive while an update is pending are added to the same
+ * batch, so the number of batches adapts to how fast the application thread
+ * can keep up.
+ *
+ * @param <T> The type of items.
+ * @author Anton Johansson
+ */
+public class Batcher<T> implements Consumer<T>
+{
+	private final Consumer<Runnable> scheduler;
+	private final Consumer<List<T>> onBatch;
+	private List<T> pending = new ArrayList<>();
+	private boolean scheduled;
+
+	/**
+	 * Constructs a new {@link Batcher} that hands batches to the JavaFX application thread.
+	 *
+	 * @param onBatch The consumer that accepts each batch, on the JavaFX application thread.
+	 */
+	public Batcher(Consumer<List<T>> onBatch)
+	{
+		this(Platform::runLater, onBatch);
+	}
+
+	/**
+	 * Constructs a new {@link Batcher} that hands batches to the given scheduler.
+	 *
+	 * @param scheduler The scheduler that runs the hand-over of a batch.
+	 * @param onBatch The consumer that accepts each batch.
+	 */
+	public Batcher(Consumer<Runnable> scheduler, Consumer<List<T>> onBatch)
+	{
+		this.scheduler = scheduler;
+		this.onBatch = onBatch;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void accept(T item)
+	{
+		boolean schedule;
+		synchronized (this)
+		{
+			pending.add(item);
+			schedule = !scheduled;
+			scheduled = true;
+		}
+
+		if (schedule)
+		{
+			scheduler.accept(this::drain);
+		}
+	}
+
+	/**
+	 * Hands over the remaining items, and then runs the given task.
+	 *
+	 * @param onComplete The task to run after the last batch, in the same way as the batches.
+	 */
+	public void complete(Runnable onComplete)
+	{
+		scheduler.accept(() ->
+		{
+			drain();
+			onComplete.run();
+		});
+	}
+
+	private void drain()
+	{
+		List<T> batch;
+		synchronized (this)
+		{
+			batch = pending;
+			pending = new ArrayList<>();
+			scheduled = false;
+		}
+
+		if (!batch.isEmpty())
+		{
+			onBatch.accept(batch);
+		}
+	}
+}
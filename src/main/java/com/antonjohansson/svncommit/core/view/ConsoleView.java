@@ -15,6 +15,7 @@
  */
 package com.antonjohansson.svncommit.core.view;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.TextArea;
 import javafx.scene.image.Image;
@@ -28,17 +29,21 @@ import javafx.scene.image.ImageView;
  */
 public class ConsoleView extends AbstractView
 {
+	private static final int MAX_LINES = 10000;
+
 	@FXML private TextArea console;
 	@FXML private ImageView icon;
+	private final LogSink sink = new LogSink(MAX_LINES, Platform::runLater, this::appendText, this::replaceText);
 
 	/**
-	 * Appends text to the console.
+	 * Appends text to the console. May be called from any thread; the text
+	 * is written with the next pulse, and only the last lines are kept.
 	 *
 	 * @param text The text to append.
 	 */
 	public void append(String text)
 	{
-		console.appendText(text);
+		sink.accept(text);
 	}
 
 	/**
@@ -48,10 +53,24 @@ public class ConsoleView extends AbstractView
 	 */
 	public void showCompletionIcon(boolean success)
 	{
-		String iconName = success ? "success.png" : "failed.png";
-		Image image = new Image(iconName);
+		sink.then(() ->
+		{
+			String iconName = success ? "success.png" : "failed.png";
+			Image image = new Image(iconName);
 
-		icon.setVisible(true);
-		icon.setImage(image);
+			icon.setVisible(true);
+			icon.setImage(image);
+		});
+	}
+
+	private void appendText(String text)
+	{
+		console.appendText(text);
+	}
+
+	private void replaceText(String text)
+	{
+		console.setText(text);
+		console.setScrollTop(Double.MAX_VALUE);
 	}
 }
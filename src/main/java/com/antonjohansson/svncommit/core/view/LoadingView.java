@@ -16,22 +16,29 @@
 package com.antonjohansson.svncommit.core.view;
 
 import static javafx.application.Platform.runLater;
-import static javafx.scene.control.ProgressIndicator.INDETERMINATE_PROGRESS;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 import javafx.fxml.FXML;
-import javafx.scene.control.ProgressBar;
+import javafx.scene.control.Label;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.StackPane;
 
 /**
  * An overlay view that shows a loading indicator.
+ * <p>
+ * The indicator shows the progress in a corner while the content remains
+ * usable.
  *
  * @author Anton Johansson
  */
 public class LoadingView extends AbstractView
 {
 	@FXML private StackPane contentPane;
-	@FXML private StackPane progressPane;
-	@FXML private ProgressBar progressBar;
+	@FXML private HBox statusPane;
+	@FXML private Label statusLabel;
+	private long progressStart;
 
 	/**
 	 * Sets the content view.
@@ -44,27 +51,36 @@ public class LoadingView extends AbstractView
 	}
 
 	/**
-	 * Sets whether or not the view should be loading.
-	 *
-	 * @param loading Whether or not the view is currently loading.
+	 * Shows the progress indicator, without blocking the content.
 	 */
-	public void setLoading(boolean loading)
+	public void startProgress()
 	{
 		runLater(() ->
 		{
-			progressPane.setVisible(loading);
-			progressBar.setProgress(0);
-			progressBar.setProgress(INDETERMINATE_PROGRESS);
+			progressStart = nanoTime();
+			statusLabel.setText("Loading...");
+			statusPane.setVisible(true);
 		});
 	}
 
 	/**
-	 * Gets whether or not the view is loading.
+	 * Updates the progress indicator with the number of loaded entries, and the rate they are loaded at.
+	 * <p>
+	 * This must be called on the JavaFX application thread, for example from a {@link Batcher}.
 	 *
-	 * @return Returns {@code true} if the view is loading.
+	 * @param count The number of entries that have been loaded so far.
+	 */
+	public void updateProgress(int count)
+	{
+		double seconds = Math.max(nanoTime() - progressStart, 1) / (double) SECONDS.toNanos(1);
+		statusLabel.setText(String.format("%,d entries (%,.0f/s)", count, count / seconds));
+	}
+
+	/**
+	 * Hides the progress indicator.
 	 */
-	public boolean isLoading()
+	public void stopProgress()
 	{
-		return progressPane.isVisible();
+		runLater(() -> statusPane.setVisible(false));
 	}
 }
@@ -0,0 +1,185 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.view;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Collects log output that is produced on a background thread, and writes
+ * it to a text component on the JavaFX application thread.
+ * <p>
+ * Text is queued without locking, and at most one flush is pending at any
+ * time, so all text that arrives during one pulse is written at once.
+ * The text may arrive in arbitrary chunks, which are split into lines when
+ * they are flushed. Only the last lines are retained, in a ring buffer. As long as nothing
+ * is dropped, new text is appended; once old lines fall out of the buffer,
+ * the text is replaced with the retained lines instead, which keeps the
+ * cost of a flush bounded no matter how long the output is.
+ *
+ * @author Anton Johansson
+ */
+public class LogSink implements Consumer<String>
+{
+	private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private final String[] lines;
+	private final Consumer<Runnable> scheduler;
+	private final Consumer<String> onAppend;
+	private final Consumer<String> onReplace;
+	private int start;
+	private int size;
+
+	/**
+	 * Constructs a new {@link LogSink}.
+	 *
+	 * @param capacity The maximum number of lines to retain.
+	 * @param scheduler The scheduler that runs the flushes, typically {@code Platform::runLater}.
+	 * @param onAppend The consumer that appends text to the component.
+	 * @param onReplace The consumer that replaces the text of the component.
+	 */
+	public LogSink(int capacity, Consumer<Runnable> scheduler, Consumer<String> onAppend, Consumer<String> onReplace)
+	{
+		this.lines = new String[capacity];
+		this.scheduler = scheduler;
+		this.onAppend = onAppend;
+		this.onReplace = onReplace;
+	}
+
+	/**
+	 * Queues text, which is written with the next flush. May be called from any thread.
+	 *
+	 * @param text The text to write, which may contain any number of lines, or part of a line.
+	 */
+	@Override
+	public void accept(String text)
+	{
+		pending.add(text);
+		if (scheduled.compareAndSet(false, true))
+		{
+			scheduler.accept(this::flush);
+		}
+	}
+
+	/**
+	 * Writes the queued lines, and then runs the given task.
+	 *
+	 * @param task The task to run after the queued lines are written, in the same way as the flushes.
+	 */
+	public void then(Runnable task)
+	{
+		scheduler.accept(() ->
+		{
+			flush();
+			task.run();
+		});
+	}
+
+	/**
+	 * Gets the retained text. Must be called in the same way as the flushes.
+	 *
+	 * @return Returns the retained lines.
+	 */
+	public String getText()
+	{
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < size; i++)
+		{
+			text.append(lines[(start + i) % lines.length]);
+		}
+		return text.toString();
+	}
+
+	private void flush()
+	{
+		scheduled.set(false);
+
+		StringBuilder appended = new StringBuilder();
+		boolean dropped = false;
+		String text;
+		while ((text = pending.poll()) != null)
+		{
+			dropped |= addLines(text);
+			if (!dropped)
+			{
+				appended.append(text);
+			}
+		}
+
+		if (dropped)
+		{
+			onReplace.accept(getText());
+		}
+		else if (appended.length() > 0)
+		{
+			onAppend.accept(appended.toString());
+		}
+	}
+
+	/**
+	 * Splits the given text into lines and adds them to the ring buffer, and
+	 * returns whether or not any line was dropped. Text that does not end with
+	 * a line separator is completed by the text that follows.
+	 */
+	private boolean addLines(String text)
+	{
+		boolean dropped = false;
+		int from = 0;
+		while (from < text.length())
+		{
+			int end = text.indexOf('\n', from) + 1;
+			if (end == 0)
+			{
+				end = text.length();
+			}
+
+			String line = text.substring(from, end);
+			if (size > 0 && !last().endsWith("\n"))
+			{
+				lines[(start + size - 1) % lines.length] = last() + line;
+			}
+			else
+			{
+				dropped |= add(line);
+			}
+			from = end;
+		}
+		return dropped;
+	}
+
+	private String last()
+	{
+		return lines[(start + size - 1) % lines.length];
+	}
+
+	/**
+	 * Adds a line to the ring buffer, and returns whether or not the oldest line was dropped.
+	 */
+	private boolean add(String line)
+	{
+		if (size < lines.length)
+		{
+			lines[(start + size++) % lines.length] = line;
+			return false;
+		}
+
+		lines[start] = line;
+		start = (start + 1) % lines.length;
+		return true;
+	}
+}
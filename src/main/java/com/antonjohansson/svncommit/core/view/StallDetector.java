@@ -0,0 +1,286 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.view;
+
+import static java.lang.System.lineSeparator;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import javafx.application.Platform;
+
+/**
+ * Detects when the JavaFX application thread stalls, and logs what it was
+ * doing meanwhile.
+ * <p>
+ * A heartbeat is posted to the application thread at a fixed interval, and
+ * the time until it runs is measured. While a heartbeat is overdue by more
+ * than the threshold, the stack of the application thread is sampled on
+ * every interval. When the heartbeat finally runs, the stall is counted and
+ * the frames that were seen in every sample, which are the ones that the
+ * thread was stuck in, are logged. Only the intersection of the samples is
+ * kept, so a long stall does not use more memory than a short one.
+ * <p>
+ * The heartbeat only writes volatile fields, and the stack is sampled
+ * without holding any lock, so the application thread never waits for the
+ * detector.
+ *
+ * @author Anton Johansson
+ */
+public class StallDetector
+{
+	static final long INTERVAL = 50;
+	private static final int HOT_FRAMES = 15;
+
+	private final long threshold;
+	private final Consumer<Runnable> scheduler;
+	private final Consumer<String> log;
+	private final LongSupplier clock;
+	private ScheduledExecutorService timer;
+
+	// Written by the application thread
+	private volatile Thread applicationThread;
+	private volatile long servicedAt;
+	private volatile boolean serviced;
+
+	// Only used by the detector thread
+	private final Set<StackTraceElement> commonFrames = new LinkedHashSet<>();
+	private int sampleCount;
+	private boolean pending;
+	private long postedAt;
+
+	// Guarded by this
+	private int stallCount;
+	private long totalStallTime;
+	private long maxStallTime;
+
+	/**
+	 * Constructs a new {@link StallDetector}.
+	 *
+	 * @param threshold The time, in milliseconds, that the application thread may be busy before it counts as a stall.
+	 * @param log The consumer that accepts the reports.
+	 */
+	public StallDetector(long threshold, Consumer<String> log)
+	{
+		this(threshold, Platform::runLater, log, System::nanoTime);
+	}
+
+	/**
+	 * Constructs a new {@link StallDetector}.
+	 *
+	 * @param threshold The time, in milliseconds, that the application thread may be busy before it counts as a stall.
+	 * @param scheduler The scheduler that runs the heartbeats on the application thread.
+	 * @param log The consumer that accepts the reports.
+	 * @param clock The clock, in nanoseconds.
+	 */
+	StallDetector(long threshold, Consumer<Runnable> scheduler, Consumer<String> log, LongSupplier clock)
+	{
+		this.threshold = threshold;
+		this.scheduler = scheduler;
+		this.log = log;
+		this.clock = clock;
+	}
+
+	/**
+	 * Starts posting heartbeats.
+	 */
+	public synchronized void start()
+	{
+		if (timer == null)
+		{
+			// Capture the application thread right away, so that a stall before the first heartbeat can be sampled
+			scheduler.accept(this::captureApplicationThread);
+			timer = newSingleThreadScheduledExecutor(runnable ->
+			{
+				Thread thread = new Thread(runnable, "svn-commit-stall-detector");
+				thread.setDaemon(true);
+				return thread;
+			});
+			timer.scheduleAtFixedRate(this::tick, INTERVAL, INTERVAL, MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Stops posting heartbeats, and logs a summary if any stalls were detected.
+	 */
+	public synchronized void stop()
+	{
+		if (timer != null)
+		{
+			timer.shutdownNow();
+			timer = null;
+			if (stallCount > 0)
+			{
+				log.accept("JavaFX application thread: " + this + lineSeparator());
+			}
+		}
+	}
+
+	/**
+	 * Checks the heartbeat, and posts a new one once the previous one has run.
+	 * Runs on the detector thread.
+	 */
+	void tick()
+	{
+		String report = null;
+		long now = clock.getAsLong();
+		Thread thread = applicationThread;
+		if (pending && serviced)
+		{
+			pending = false;
+			report = measure(millis(servicedAt - postedAt));
+		}
+		else if (pending && millis(now - postedAt) >= threshold && thread != null)
+		{
+			sample(thread.getStackTrace());
+		}
+
+		if (!pending)
+		{
+			// The previous heartbeat has run, so no heartbeat can race with this reset
+			pending = true;
+			serviced = false;
+			postedAt = now;
+			scheduler.accept(this::heartbeat);
+		}
+
+		if (report != null)
+		{
+			log.accept(report);
+		}
+	}
+
+	/**
+	 * Runs on the application thread, and does as little as possible.
+	 */
+	private void heartbeat()
+	{
+		applicationThread = Thread.currentThread();
+		servicedAt = clock.getAsLong();
+		serviced = true;
+	}
+
+	private void captureApplicationThread()
+	{
+		applicationThread = Thread.currentThread();
+	}
+
+	/**
+	 * Keeps the frames of the given sample that were seen in every previous sample of this stall.
+	 */
+	private void sample(StackTraceElement[] frames)
+	{
+		if (sampleCount++ == 0)
+		{
+			commonFrames.addAll(Arrays.asList(frames));
+		}
+		else
+		{
+			commonFrames.retainAll(new HashSet<>(Arrays.asList(frames)));
+		}
+	}
+
+	private String measure(long delay)
+	{
+		if (delay < threshold)
+		{
+			clearSamples();
+			return null;
+		}
+
+		synchronized (this)
+		{
+			stallCount++;
+			totalStallTime += delay;
+			maxStallTime = Math.max(maxStallTime, delay);
+		}
+
+		StringBuilder report = new StringBuilder()
+				.append("JavaFX application thread stalled for ").append(delay).append(" ms (")
+				.append(sampleCount).append(" samples)").append(lineSeparator());
+		hotFrames().forEach(frame -> report.append("\tat ").append(frame).append(lineSeparator()));
+		clearSamples();
+		return report.toString();
+	}
+
+	/**
+	 * Gets the frames that were seen in every sample, in the order of the
+	 * first sample, with the innermost frame first.
+	 */
+	private List<StackTraceElement> hotFrames()
+	{
+		List<StackTraceElement> frames = new ArrayList<>(commonFrames);
+		return frames.subList(0, Math.min(HOT_FRAMES, frames.size()));
+	}
+
+	private void clearSamples()
+	{
+		commonFrames.clear();
+		sampleCount = 0;
+	}
+
+	private static long millis(long nanos)
+	{
+		return MILLISECONDS.convert(nanos, NANOSECONDS);
+	}
+
+	/**
+	 * Gets the number of detected stalls.
+	 *
+	 * @return Returns the number of stalls.
+	 */
+	public synchronized int getStallCount()
+	{
+		return stallCount;
+	}
+
+	/**
+	 * Gets the total duration of all detected stalls.
+	 *
+	 * @return Returns the total duration, in milliseconds.
+	 */
+	public synchronized long getTotalStallTime()
+	{
+		return totalStallTime;
+	}
+
+	/**
+	 * Gets the duration of the longest detected stall.
+	 *
+	 * @return Returns the longest duration, in milliseconds.
+	 */
+	public synchronized long getMaxStallTime()
+	{
+		return maxStallTime;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized String toString()
+	{
+		return String.format("%d stalls, %d ms in total, %d ms at most", stallCount, totalStallTime, maxStallTime);
+	}
+}
@@ -20,29 +20,41 @@ import com.antonjohansson.svncommit.core.concurrent.DummyWorker;
 import com.antonjohansson.svncommit.core.config.Configuration;
 import com.antonjohansson.svncommit.core.domain.FileStatus;
 import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+import com.antonjohansson.svncommit.core.utils.AsyncSubversion;
 import com.antonjohansson.svncommit.core.utils.Subversion;
+import com.antonjohansson.svncommit.core.utils.WorkingCopyWatcher;
+import com.antonjohansson.svncommit.core.view.Batcher;
 import com.antonjohansson.svncommit.core.view.ConsoleView;
 import com.antonjohansson.svncommit.core.view.DialogFactory;
 import com.antonjohansson.svncommit.core.view.LoadingView;
 import com.antonjohansson.svncommit.core.view.View;
 
 import static java.lang.Thread.sleep;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.DELETED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.MODIFIED;
 import static java.util.Arrays.asList;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static javafx.scene.input.KeyCode.ENTER;
 import static javafx.scene.input.KeyCode.F5;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.stubbing.Answer;
 
@@ -69,8 +81,11 @@ public class CommitControllerTest extends Assert
 	@Mock private ConsoleView consoleView;
 	@Mock private DialogFactory dialogFactory;
 	@Mock private Subversion subversion;
+	@Mock private AsyncSubversion asyncSubversion;
 	@Mock private CommitContextMenu commitContextMenu;
+	@Mock private WorkingCopyWatcher watcher;
 	private StubbedLoadingView loadingView;
+	private final List<ModifiedItem> streamedItems = new ArrayList<>();
 	private EventHandler<KeyEvent> onKeyPressedHandler;
 	private CommitController controller;
 
@@ -86,10 +101,20 @@ public class CommitControllerTest extends Assert
 
 		initMocks(this);
 		loadingView = new StubbedLoadingView();
-		controller = new CommitController(configuration, commitView, loadingView, () -> consoleView, dialogFactory, subversion, new DummyWorker(), () -> commitContextMenu);
+		controller = new CommitController(configuration, commitView, loadingView, () -> consoleView, dialogFactory, subversion, asyncSubversion, new DummyWorker(), () -> commitContextMenu, watcher);
 
 		when(configuration.isReplicationEnabled()).thenReturn(true);
-		when(subversion.getModifiedItems()).thenReturn(MODIFIED_ITEMS);
+		when(commitView.streamItems(any())).thenAnswer(invocation ->
+		{
+			streamedItems.clear();
+			return new Batcher<ModifiedItem>(Runnable::run, streamedItems::addAll);
+		});
+		doAnswer(invocation ->
+		{
+			Consumer<ModifiedItem> consumer = (Consumer<ModifiedItem>) invocation.getArguments()[0];
+			MODIFIED_ITEMS.forEach(consumer);
+			return null;
+		}).when(subversion).readModifiedItems(any());
 		doAnswer(onKeyPressedAnswer).when(commitView).setOnKeyPressed(any());
 
 		assertThat(loadingView.isLoading(), is(false));
@@ -106,8 +131,9 @@ public class CommitControllerTest extends Assert
 		verify(commitView).setOnKeyPressed(any());
 		verify(commitView).setOnMouseDoubleClicked(any());
 		verify(commitView).setReplicationColumnsVisible(true);
-		verify(commitView).setItems(MODIFIED_ITEMS);
+		verify(commitView).streamItems(any());
 		verifyNoMoreInteractions(commitView);
+		assertEquals(MODIFIED_ITEMS, streamedItems);
 	}
 
 	@Test
@@ -117,7 +143,130 @@ public class CommitControllerTest extends Assert
 		onKeyPressedHandler.handle(event);
 		onKeyPressedHandler.handle(event);
 
-		verify(commitView, times(3)).setItems(MODIFIED_ITEMS);
+		verify(subversion, times(3)).readModifiedItems(any());
+		verify(commitView, times(1)).streamItems(any());
+		verify(commitView, never()).applyChanges(any());
+		assertEquals(MODIFIED_ITEMS, streamedItems);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void test_that_F5_applies_changes() throws Exception
+	{
+		ModifiedItem added = new ModifiedItem("added", MODIFIED);
+		doAnswer(invocation ->
+		{
+			Consumer<ModifiedItem> consumer = (Consumer<ModifiedItem>) invocation.getArguments()[0];
+			MODIFIED_ITEMS.subList(1, MODIFIED_ITEMS.size()).forEach(consumer);
+			consumer.accept(added);
+			return null;
+		}).when(subversion).readModifiedItems(any());
+
+		onKeyPressedHandler.handle(keyEvent(F5));
+
+		List<ModifiedItem> expected = new ArrayList<>(MODIFIED_ITEMS.subList(1, MODIFIED_ITEMS.size()));
+		expected.add(added);
+		ArgumentCaptor<ChangeSet> changes = ArgumentCaptor.forClass(ChangeSet.class);
+		verify(commitView).applyChanges(changes.capture());
+		assertEquals(expected, changes.getValue().apply(MODIFIED_ITEMS));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void test_that_an_interrupted_initial_refresh_keeps_the_streamed_items() throws Exception
+	{
+		doAnswer(invocation ->
+		{
+			Consumer<ModifiedItem> consumer = (Consumer<ModifiedItem>) invocation.getArguments()[0];
+			MODIFIED_ITEMS.subList(0, 2).forEach(consumer);
+			throw new RuntimeException("cancelled");
+		}).when(subversion).readModifiedItems(any());
+
+		controller = new CommitController(configuration, commitView, loadingView, () -> consoleView, dialogFactory, subversion, asyncSubversion, new DummyWorker(), () -> commitContextMenu, watcher);
+		try
+		{
+			controller.initialize();
+			fail("Expected the refresh to fail");
+		}
+		catch (RuntimeException e)
+		{
+			assertEquals("cancelled", e.getMessage());
+		}
+		assertEquals(MODIFIED_ITEMS.subList(0, 2), streamedItems);
+
+		doAnswer(invocation ->
+		{
+			Consumer<ModifiedItem> consumer = (Consumer<ModifiedItem>) invocation.getArguments()[0];
+			MODIFIED_ITEMS.forEach(consumer);
+			return null;
+		}).when(subversion).readModifiedItems(any());
+		onKeyPressedHandler.handle(keyEvent(F5));
+
+		verify(commitView, times(2)).streamItems(any());
+		ArgumentCaptor<ChangeSet> changes = ArgumentCaptor.forClass(ChangeSet.class);
+		verify(commitView).applyChanges(changes.capture());
+		assertEquals(MODIFIED_ITEMS, changes.getValue().apply(MODIFIED_ITEMS.subList(0, 2)));
+	}
+
+	@Test
+	public void test_that_F5_flushes_the_watcher() throws Exception
+	{
+		when(watcher.isWatching()).thenReturn(true);
+
+		onKeyPressedHandler.handle(keyEvent(F5));
+
+		verify(watcher).flush();
+		verify(commitView, times(1)).streamItems(any());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void test_that_changed_directories_are_patched() throws Exception
+	{
+		when(configuration.isWatchEnabled()).thenReturn(true);
+		ArgumentCaptor<Consumer<Collection<String>>> onChange = ArgumentCaptor.forClass((Class) Consumer.class);
+		controller.initialize();
+		verify(watcher).start(onChange.capture(), any());
+
+		ModifiedItem changed = new ModifiedItem("directory/file", MODIFIED);
+		when(subversion.getModifiedItems(asList("directory"))).thenReturn(asList(changed));
+		onChange.getValue().accept(asList("directory"));
+
+		List<ModifiedItem> expected = new ArrayList<>(MODIFIED_ITEMS);
+		expected.add(changed);
+		ArgumentCaptor<ChangeSet> changes = ArgumentCaptor.forClass(ChangeSet.class);
+		verify(commitView).applyChanges(changes.capture());
+		assertEquals(expected, changes.getValue().apply(MODIFIED_ITEMS));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void test_that_context_menu_actions_refresh_only_their_items() throws Exception
+	{
+		ArgumentCaptor<Consumer<Collection<ModifiedItem>>> refreshCommand = ArgumentCaptor.forClass((Class) Consumer.class);
+		verify(commitView).initialize(any(), refreshCommand.capture());
+
+		ModifiedItem deleted = new ModifiedItem("fileName1", DELETED);
+		when(subversion.getModifiedItemsUnder(asList("fileName1", "fileName2"))).thenReturn(asList(deleted, MODIFIED_ITEMS.get(1)));
+		refreshCommand.getValue().accept(MODIFIED_ITEMS.subList(0, 2));
+
+		verify(subversion, times(1)).readModifiedItems(any());
+		ArgumentCaptor<ChangeSet> changes = ArgumentCaptor.forClass(ChangeSet.class);
+		verify(commitView).applyChanges(changes.capture());
+		assertEquals(1, changes.getValue().getChanged().size());
+		assertSame(deleted, changes.getValue().getChanged().get(MODIFIED_ITEMS.get(0)));
+	}
+
+	@Test
+	public void test_that_compare_runs_asynchronously() throws Exception
+	{
+		when(commitView.selectedItems()).thenAnswer(invocation -> MODIFIED_ITEMS.subList(0, 1).stream());
+		when(asyncSubversion.compare(any())).thenReturn(completedFuture(null));
+
+		onKeyPressedHandler.handle(keyEvent(ENTER));
+
+		verify(asyncSubversion).compare("fileName1");
+		verify(subversion, never()).compare(any());
 	}
 
 	private KeyEvent keyEvent(KeyCode keyCode)
@@ -154,12 +303,22 @@ public class CommitControllerTest extends Assert
 		}
 
 		@Override
-		public void setLoading(boolean loading)
+		public void startProgress()
 		{
-			this.loading = loading;
+			this.loading = true;
 		}
 
 		@Override
+		public void updateProgress(int count)
+		{
+		}
+
+		@Override
+		public void stopProgress()
+		{
+			this.loading = false;
+		}
+
 		public boolean isLoading()
 		{
 			return loading;
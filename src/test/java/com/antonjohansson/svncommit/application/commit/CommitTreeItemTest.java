@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.application.commit;
+
+import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+
+import static com.antonjohansson.svncommit.core.domain.FileStatus.ADDED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.MODIFIED;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javafx.scene.control.TreeItem;
+
+/**
+ * Unit tests of {@link CommitTreeItem}.
+ *
+ * @author Anton Johansson
+ */
+public class CommitTreeItemTest extends Assert
+{
+	@Test
+	public void test_children_and_expansion()
+	{
+		PathTrie trie = new PathTrie();
+		trie.put(new ModifiedItem("file.txt", MODIFIED));
+		trie.put(new ModifiedItem("src/main/Nested.java", ADDED));
+
+		Set<String> expandedPaths = new HashSet<>(asList("src"));
+		CommitTreeItem root = new CommitTreeItem(trie, ".", expandedPaths);
+		assertFalse(root.isLeaf());
+		assertFalse(root.isExpanded());
+
+		assertEquals(asList("file.txt", "src"), root.getChildren().stream().map(item -> item.getValue()).collect(toList()));
+		assertTrue(root.getChildren().get(0).isLeaf());
+
+		CommitTreeItem src = (CommitTreeItem) root.getChildren().get(1);
+		assertTrue(src.isExpanded());
+		src.setExpanded(false);
+		root.setExpanded(true);
+		assertEquals(new HashSet<>(asList(".")), expandedPaths);
+	}
+
+	@Test
+	public void test_update_keeps_existing_children()
+	{
+		PathTrie trie = new PathTrie();
+		ModifiedItem file = new ModifiedItem("file.txt", MODIFIED);
+		trie.put(file);
+		trie.put(new ModifiedItem("src/main/Nested.java", ADDED));
+
+		CommitTreeItem root = new CommitTreeItem(trie, ".", new HashSet<>());
+		TreeItem<String> src = root.getChildren().get(1);
+		TreeItem<String> main = src.getChildren().get(0);
+
+		trie.remove(file);
+		trie.put(new ModifiedItem("added.txt", ADDED));
+		trie.put(new ModifiedItem("src/main/Other.java", ADDED));
+		trie.put(new ModifiedItem("src/main/sub/Deep.java", ADDED));
+		root.update(new HashSet<>(asList(".", "file.txt", "added.txt", "src", "src/main", "src/main/Other.java", "src/main/sub", "src/main/sub/Deep.java")));
+
+		assertEquals(asList("added.txt", "src"), root.getChildren().stream().map(item -> item.getValue()).collect(toList()));
+		assertSame(src, root.getChildren().get(1));
+		assertSame(main, src.getChildren().get(0));
+		assertEquals(asList("src/main/Nested.java", "src/main/Other.java", "src/main/sub"), main.getChildren().stream().map(item -> item.getValue()).collect(toList()));
+	}
+}
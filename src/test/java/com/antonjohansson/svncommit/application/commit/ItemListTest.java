@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.application.commit;
+
+import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+
+import static com.antonjohansson.svncommit.core.domain.FileStatus.ADDED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.MODIFIED;
+import static java.util.Arrays.asList;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javafx.collections.ListChangeListener.Change;
+
+/**
+ * Unit tests of {@link ItemList}.
+ *
+ * @author Anton Johansson
+ */
+public class ItemListTest extends Assert
+{
+	private static final int SIZE = 100000;
+
+	private final ItemList list = new ItemList();
+	private final List<ModifiedItem> items = new ArrayList<>();
+	private final List<String> events = new ArrayList<>();
+	private int changes;
+
+	@Before
+	public void setUp()
+	{
+		for (int index = 0; index < SIZE; index++)
+		{
+			items.add(new ModifiedItem("file" + index, MODIFIED));
+		}
+		list.addAll(items);
+		list.addListener((Change<? extends ModifiedItem> change) ->
+		{
+			changes++;
+			while (change.next())
+			{
+				events.add(event(change));
+			}
+		});
+	}
+
+	@Test
+	public void test_only_changed_rows_are_updated()
+	{
+		ModifiedItem removed = items.get(10);
+		ModifiedItem changedBefore = items.get(50000);
+		ModifiedItem changedAfter = new ModifiedItem("file50000", ADDED);
+		ModifiedItem added = new ModifiedItem("new", ADDED);
+
+		Map<ModifiedItem, ModifiedItem> changed = new IdentityHashMap<>();
+		changed.put(changedBefore, changedAfter);
+		list.apply(new ChangeSet(asList(added), asList(removed), changed));
+
+		assertEquals(1, changes);
+		assertEquals(asList("removed 10", "replaced 49999", "added 99999"), events);
+		assertEquals(SIZE, list.size());
+		assertSame(changedAfter, list.get(49999));
+		assertSame(added, list.get(SIZE - 1));
+		assertSame(items.get(11), list.get(10));
+	}
+
+	@Test
+	public void test_empty_change_set_does_not_fire()
+	{
+		list.apply(new ChangeSet(new ArrayList<>(), new ArrayList<>(), new IdentityHashMap<>()));
+
+		assertEquals(0, changes);
+	}
+
+	@Test
+	public void test_clear()
+	{
+		list.clear();
+
+		assertEquals(1, changes);
+		assertEquals(asList("removed 0"), events);
+		assertTrue(list.isEmpty());
+	}
+
+	private String event(Change<? extends ModifiedItem> change)
+	{
+		if (change.wasReplaced())
+		{
+			return "replaced " + change.getFrom();
+		}
+		if (change.wasAdded())
+		{
+			return "added " + change.getFrom();
+		}
+		return "removed " + change.getFrom();
+	}
+}
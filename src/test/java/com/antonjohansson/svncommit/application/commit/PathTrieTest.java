@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.application.commit;
+
+import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+
+import static com.antonjohansson.svncommit.core.domain.FileStatus.ADDED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.MODIFIED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.NORMAL;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.UNVERSIONED;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Comparator.comparing;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link PathTrie}.
+ *
+ * @author Anton Johansson
+ */
+public class PathTrieTest extends Assert
+{
+	private final PathTrie trie = new PathTrie(true);
+	private final ModifiedItem root = new ModifiedItem(".", NORMAL, MODIFIED);
+	private final ModifiedItem file = new ModifiedItem("file.txt", MODIFIED);
+	private final ModifiedItem directory = new ModifiedItem("src", ADDED);
+	private final ModifiedItem nested = new ModifiedItem("src/main/Nested.java", ADDED);
+	private final ModifiedItem other = new ModifiedItem("src/Other.java", UNVERSIONED);
+
+	@Before
+	public void setUp()
+	{
+		asList(root, file, directory, nested, other).forEach(trie::put);
+	}
+
+	@Test
+	public void test_get()
+	{
+		assertSame(root, trie.get("."));
+		assertSame(nested, trie.get("src/main/Nested.java"));
+		assertNull(trie.get("src/main"));
+		assertNull(trie.get("missing"));
+	}
+
+	@Test
+	public void test_counts()
+	{
+		assertEquals(5, trie.count("."));
+		assertEquals(3, trie.count("src"));
+		assertEquals(2, trie.count("src", ADDED));
+		assertEquals(1, trie.count("src", UNVERSIONED));
+		assertEquals(1, trie.count("src/main"));
+		assertEquals(0, trie.count("missing"));
+	}
+
+	@Test
+	public void test_children()
+	{
+		assertEquals(asList("file.txt", "src"), trie.children("."));
+		assertEquals(asList("src/Other.java", "src/main"), trie.children("src"));
+		assertEquals(emptyList(), trie.children("file.txt"));
+		assertEquals(emptyList(), trie.children("missing"));
+		assertTrue(trie.hasChildren("src/main"));
+		assertFalse(trie.hasChildren("src/main/Nested.java"));
+		assertFalse(trie.hasChildren("missing"));
+	}
+
+	@Test
+	public void test_within()
+	{
+		assertEquals(asList(directory, other), sorted(trie.within(asList("src"))));
+		assertEquals(asList(root, file, directory, other), sorted(trie.within(asList(".", "src"))));
+	}
+
+	@Test
+	public void test_under()
+	{
+		assertEquals(asList(directory, other, nested), sorted(trie.under("src")));
+	}
+
+	@Test
+	public void test_remove_prunes_empty_directories()
+	{
+		trie.remove(nested);
+
+		assertEquals(0, trie.count("src/main"));
+		assertEquals(2, trie.count("src"));
+		assertEquals(asList(directory, other), sorted(trie.under("src")));
+	}
+
+	@Test
+	public void test_remove_ignores_other_item_with_same_path()
+	{
+		trie.remove(new ModifiedItem("file.txt", MODIFIED));
+
+		assertSame(file, trie.get("file.txt"));
+	}
+
+	@Test
+	public void test_apply()
+	{
+		ModifiedItem replacement = new ModifiedItem("src/Other.java", ADDED);
+		ModifiedItem added = new ModifiedItem("src/main/Added.java", ADDED);
+		Map<ModifiedItem, ModifiedItem> changed = new IdentityHashMap<>();
+		changed.put(other, replacement);
+
+		trie.apply(new ChangeSet(asList(added), asList(file), changed));
+
+		assertNull(trie.get("file.txt"));
+		assertSame(replacement, trie.get("src/Other.java"));
+		assertEquals(4, trie.count("src", ADDED));
+		assertEquals(0, trie.count("src", UNVERSIONED));
+		assertEquals(5, trie.count("."));
+		assertEquals(emptyList(), trie.within(asList("missing")));
+	}
+
+	@Test
+	public void test_commitable_counts_follow_do_commit()
+	{
+		assertEquals(4, trie.countCommitable("."));
+		assertEquals(2, trie.countCommitable("src"));
+		assertEquals(2, trie.countDoCommit("src"));
+
+		nested.setDoCommit(false);
+		assertEquals(1, trie.countDoCommit("src"));
+		assertEquals(3, trie.countDoCommit("."));
+
+		trie.remove(nested);
+		nested.setDoCommit(true);
+		assertEquals(1, trie.countCommitable("src"));
+		assertEquals(1, trie.countDoCommit("src"));
+	}
+
+	@Test
+	public void test_setDoCommit()
+	{
+		trie.setDoCommit("src", false);
+
+		assertFalse(directory.isDoCommit());
+		assertFalse(nested.isDoCommit());
+		assertFalse(other.isDoCommit());
+		assertTrue(file.isDoCommit());
+		assertEquals(0, trie.countDoCommit("src"));
+		assertEquals(2, trie.countDoCommit("."));
+
+		trie.setDoCommit(".", true);
+		assertEquals(4, trie.countDoCommit("."));
+		assertFalse(other.isDoCommit());
+
+		nested.setDoCommit(false);
+		assertEquals(1, trie.countDoCommit("src"));
+		assertEquals(3, trie.countDoCommit("."));
+	}
+
+	private List<ModifiedItem> sorted(List<ModifiedItem> items)
+	{
+		items.sort(comparing(ModifiedItem::getFileName));
+		return items;
+	}
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.application.commit;
+
+import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+
+import static com.antonjohansson.svncommit.core.domain.DbUpdateLocation.NONE;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.ADDED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.MODIFIED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.UNVERSIONED;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link Reconciliation} and {@link ChangeSet}.
+ *
+ * @author Anton Johansson
+ */
+public class ReconciliationTest extends Assert
+{
+	@Test
+	public void test_unchanged_items()
+	{
+		ModifiedItem previous = new ModifiedItem("file", MODIFIED);
+		previous.setDoCommit(false);
+		ModifiedItem current = new ModifiedItem("file", MODIFIED);
+
+		Reconciliation reconciliation = new Reconciliation(asList(previous));
+		reconciliation.accept(current);
+		ChangeSet changes = reconciliation.complete();
+
+		assertTrue(changes.isEmpty());
+		assertFalse(current.isDoCommit());
+		assertSame(previous, changes.apply(asList(previous)).get(0));
+	}
+
+	@Test
+	public void test_added_removed_and_changed_items()
+	{
+		ModifiedItem kept = new ModifiedItem("kept", MODIFIED);
+		ModifiedItem removed = new ModifiedItem("removed", MODIFIED);
+		ModifiedItem changedBefore = new ModifiedItem("changed", UNVERSIONED);
+		ModifiedItem changedAfter = new ModifiedItem("changed", ADDED);
+		ModifiedItem added = new ModifiedItem("added", ADDED);
+		List<ModifiedItem> previousItems = asList(kept, removed, changedBefore);
+
+		Reconciliation reconciliation = new Reconciliation(previousItems);
+		reconciliation.accept(added);
+		reconciliation.accept(changedAfter);
+		reconciliation.accept(new ModifiedItem("kept", MODIFIED));
+		ChangeSet changes = reconciliation.complete();
+
+		assertEquals(asList(added), changes.getAdded());
+		assertEquals(asList(removed), changes.getRemoved());
+		assertSame(changedAfter, changes.getChanged().get(changedBefore));
+		assertEquals(1, changes.getChanged().size());
+		assertFalse(changedAfter.isDoCommit());
+		assertEquals(NONE, changedAfter.getReplication());
+
+		List<ModifiedItem> applied = changes.apply(previousItems);
+		assertEquals(3, applied.size());
+		assertSame(kept, applied.get(0));
+		assertSame(changedAfter, applied.get(1));
+		assertSame(added, applied.get(2));
+	}
+
+	@Test
+	public void test_initial_load()
+	{
+		ModifiedItem first = new ModifiedItem("first", MODIFIED);
+		ModifiedItem second = new ModifiedItem("second", ADDED);
+
+		Reconciliation reconciliation = new Reconciliation(emptyList());
+		reconciliation.accept(first);
+		reconciliation.accept(second);
+
+		assertEquals(asList(first, second), reconciliation.complete().apply(emptyList()));
+	}
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.application.commit;
+
+import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+
+import static com.antonjohansson.svncommit.core.domain.FileStatus.ADDED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.MODIFIED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.UNVERSIONED;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonMap;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link TrigramIndex}.
+ *
+ * @author Anton Johansson
+ */
+public class TrigramIndexTest extends Assert
+{
+	private final TrigramIndex index = new TrigramIndex();
+	private final ModifiedItem readme = new ModifiedItem("README.md", MODIFIED);
+	private final ModifiedItem main = new ModifiedItem("src/main/java/Main.java", ADDED);
+	private final ModifiedItem test = new ModifiedItem("src/test/java/MainTest.java", UNVERSIONED);
+
+	@Before
+	public void setUp()
+	{
+		asList(readme, main, test).forEach(index::put);
+	}
+
+	@Test
+	public void test_search()
+	{
+		assertEquals(set(main, test), search("main"));
+		assertEquals(set(test), search("MainTest"));
+		assertEquals(set(readme), search("readme.MD"));
+		assertEquals(set(main, test), search("/java/"));
+		assertEquals(set(), search("missing"));
+	}
+
+	@Test
+	public void test_search_shorter_than_trigram()
+	{
+		assertEquals(set(readme, main, test), search(""));
+		assertEquals(set(readme), search("md"));
+		assertEquals(set(main, test), search("/"));
+	}
+
+	@Test
+	public void test_remove_and_apply()
+	{
+		index.remove(main);
+		assertEquals(set(test), search("main"));
+
+		ModifiedItem replacement = new ModifiedItem("src/test/java/MainTest.java", ADDED);
+		ModifiedItem added = new ModifiedItem("src/main/resources/main.properties", UNVERSIONED);
+		index.apply(new ChangeSet(asList(added), asList(readme), singletonMap(test, replacement)));
+
+		assertEquals(set(replacement, added), search("main"));
+		assertEquals(set(), search("readme"));
+		assertEquals(2, index.size());
+	}
+
+	@Test
+	public void test_saturated_trigrams_are_scanned()
+	{
+		List<ModifiedItem> items = new ArrayList<>();
+		for (int i = 0; i < 10000; i++)
+		{
+			ModifiedItem item = new ModifiedItem("src/main/java/File" + i + ".java", MODIFIED);
+			items.add(item);
+			index.put(item);
+		}
+
+		assertEquals(10002, search("/java/").size());
+		assertEquals(set(items.get(1234)), search("File1234."));
+
+		items.forEach(index::remove);
+		assertEquals(set(main, test), search("/java/"));
+	}
+
+	@Test
+	public void test_cancelled()
+	{
+		assertNull(index.search("main", () -> true));
+		assertEquals(emptyList(), index.search("missing", () -> true));
+	}
+
+	@Test(timeout = 10000)
+	public void test_updates_do_not_wait_for_search() throws Exception
+	{
+		CountDownLatch searching = new CountDownLatch(1);
+		CountDownLatch updated = new CountDownLatch(1);
+		ModifiedItem added = new ModifiedItem("src/main/java/Added.java", ADDED);
+		List<List<ModifiedItem>> result = new ArrayList<>();
+		Thread search = new Thread(() -> result.add(index.search("main", () ->
+		{
+			searching.countDown();
+			awaitUninterruptibly(updated);
+			return false;
+		})));
+		search.start();
+
+		searching.await();
+		index.put(added);
+		index.remove(main);
+		updated.countDown();
+		search.join();
+
+		assertEquals(asList(test), result.get(0));
+		assertEquals(set(test, added), search("main"));
+	}
+
+	@Test
+	public void test_clear()
+	{
+		index.clear();
+		assertEquals(set(), search(""));
+		assertEquals(set(), search("main"));
+		assertEquals(0, index.size());
+	}
+
+	private Set<ModifiedItem> search(String fragment)
+	{
+		return new HashSet<>(index.search(fragment, () -> false));
+	}
+
+	private static void awaitUninterruptibly(CountDownLatch latch)
+	{
+		try
+		{
+			latch.await();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private Set<ModifiedItem> set(ModifiedItem... items)
+	{
+		return new HashSet<>(asList(items));
+	}
+}
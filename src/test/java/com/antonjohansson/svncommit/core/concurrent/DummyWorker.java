@@ -15,6 +15,8 @@
  */
 package com.antonjohansson.svncommit.core.concurrent;
 
+import java.util.function.Consumer;
+
 /**
  * Dummy implementation of {@link Worker} that instantly runs tasks on the same
  * thread. Used in unit tests.
@@ -25,9 +27,27 @@ public class DummyWorker implements Worker
 {
 	/** {@inheritDoc} */
 	@Override
-	public void submit(Runnable task)
+	public TaskHandle submit(Lane lane, Consumer<TaskHandle> task)
+	{
+		TaskHandle handle = new TaskHandle();
+		if (handle.start())
+		{
+			task.accept(handle);
+		}
+		return handle;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public TaskHandle submit(Lane lane, String key, Consumer<TaskHandle> task)
+	{
+		return submit(lane, task);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void onShutdown(Runnable hook)
 	{
-		task.run();
 	}
 
 	/** {@inheritDoc} */
@@ -0,0 +1,186 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.concurrent;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link OperationScheduler}.
+ *
+ * @author Anton Johansson
+ */
+public class OperationSchedulerTest extends Assert
+{
+	private final OperationScheduler scheduler = new OperationScheduler(3, 1);
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@After
+	public void tearDown()
+	{
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void test_that_readers_run_in_parallel() throws Exception
+	{
+		CountDownLatch bothReading = new CountDownLatch(2);
+		Future<Boolean> first = executor.submit(() -> scheduler.read(() -> countDownAndAwait(bothReading)));
+		Future<Boolean> second = executor.submit(() -> scheduler.read(() -> countDownAndAwait(bothReading)));
+
+		assertTrue(first.get(5, SECONDS));
+		assertTrue(second.get(5, SECONDS));
+	}
+
+	@Test
+	public void test_that_writers_wait_for_readers() throws Exception
+	{
+		CountDownLatch reading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		List<String> events = new ArrayList<>();
+		Future<?> reader = executor.submit(() -> scheduler.read(() ->
+		{
+			reading.countDown();
+			await(release);
+			add(events, "read");
+			return null;
+		}));
+		assertTrue(reading.await(5, SECONDS));
+
+		Future<?> writer = executor.submit(() -> scheduler.write(() -> add(events, "write")));
+		Thread.sleep(50);
+		assertTrue(events.isEmpty());
+
+		release.countDown();
+		reader.get(5, SECONDS);
+		writer.get(5, SECONDS);
+		assertEquals(asList("read", "write"), events);
+	}
+
+	@Test
+	public void test_that_locked_operations_are_retried()
+	{
+		AtomicInteger attempts = new AtomicInteger();
+		String result = scheduler.write(() ->
+		{
+			if (attempts.incrementAndGet() < 3)
+			{
+				throw new RuntimeException("Could not add", new RuntimeException("svn: E155004: Working copy '/path' locked."));
+			}
+			return "done";
+		});
+
+		assertEquals("done", result);
+		assertEquals(3, attempts.get());
+	}
+
+	@Test
+	public void test_that_other_failures_are_not_retried()
+	{
+		AtomicInteger attempts = new AtomicInteger();
+		try
+		{
+			scheduler.read(() ->
+			{
+				attempts.incrementAndGet();
+				throw new RuntimeException("Could not get status");
+			});
+			fail("Expected an exception");
+		}
+		catch (RuntimeException e)
+		{
+			assertEquals("Could not get status", e.getMessage());
+		}
+		assertEquals(1, attempts.get());
+	}
+
+	@Test
+	public void test_that_locked_streaming_operations_are_retried()
+	{
+		AtomicInteger attempts = new AtomicInteger();
+		List<String> output = new ArrayList<>();
+		List<Boolean> outcomes = new ArrayList<>();
+		scheduler.write(output::add, outcomes::add, (onData, onComplete) ->
+		{
+			if (attempts.incrementAndGet() == 1)
+			{
+				onData.accept("svn: E155004: Run 'svn cleanup' to remove locks");
+				onComplete.accept(false);
+				return;
+			}
+			onData.accept("Updated to revision 2.");
+			onComplete.accept(true);
+		});
+
+		assertEquals(2, attempts.get());
+		assertEquals(3, output.size());
+		assertTrue(output.get(1).startsWith("Working copy is locked, retrying in 1 ms"));
+		assertEquals("Updated to revision 2.", output.get(2));
+		assertEquals(asList(true), outcomes);
+	}
+
+	@Test
+	public void test_that_streaming_operations_give_up()
+	{
+		AtomicInteger attempts = new AtomicInteger();
+		List<Boolean> outcomes = new ArrayList<>();
+		scheduler.write(data -> {}, outcomes::add, (onData, onComplete) ->
+		{
+			attempts.incrementAndGet();
+			onData.accept("svn: E155004: Working copy locked");
+			onComplete.accept(false);
+		});
+
+		assertEquals(3, attempts.get());
+		assertEquals(asList(false), outcomes);
+	}
+
+	private static boolean countDownAndAwait(CountDownLatch latch)
+	{
+		latch.countDown();
+		return await(latch);
+	}
+
+	private static boolean await(CountDownLatch latch)
+	{
+		try
+		{
+			return latch.await(5, SECONDS);
+		}
+		catch (InterruptedException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static synchronized Void add(List<String> events, String event)
+	{
+		events.add(event);
+		return null;
+	}
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.concurrent;
+
+import static com.antonjohansson.svncommit.core.concurrent.Lane.STATUS;
+import static com.antonjohansson.svncommit.core.concurrent.Lane.WRITE;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link WorkerImpl}.
+ *
+ * @author Anton Johansson
+ */
+public class WorkerImplTest extends Assert
+{
+	private final Map<Lane, ExecutorService> lanes = new EnumMap<>(Lane.class);
+	private final List<String> runs = new ArrayList<>();
+	private WorkerImpl worker;
+
+	@Before
+	public void setUp()
+	{
+		worker = new WorkerImpl(null, lane ->
+		{
+			ExecutorService executor = newSingleThreadExecutor();
+			lanes.put(lane, executor);
+			return executor;
+		});
+	}
+
+	@After
+	public void tearDown()
+	{
+		worker.shutdown();
+	}
+
+	@Test
+	public void test_that_waiting_keyed_tasks_are_coalesced() throws Exception
+	{
+		CountDownLatch blocked = block(STATUS);
+
+		TaskHandle first = worker.submit(STATUS, "refresh", handle -> run("refresh"));
+		for (int i = 0; i < 4; i++)
+		{
+			assertSame(first, worker.submit(STATUS, "refresh", handle -> run("refresh")));
+		}
+
+		blocked.countDown();
+		await(STATUS);
+		assertEquals(1, runs.size());
+	}
+
+	@Test
+	public void test_that_running_keyed_tasks_are_cancelled() throws Exception
+	{
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		TaskHandle first = worker.submit(STATUS, "refresh", handle ->
+		{
+			started.countDown();
+			awaitUninterruptibly(release);
+			run(handle.isCancelled() ? "cancelled" : "completed");
+		});
+		assertTrue(started.await(5, SECONDS));
+
+		TaskHandle second = worker.submit(STATUS, "refresh", handle -> run("second"));
+		assertNotSame(first, second);
+		assertTrue(first.isCancelled());
+
+		release.countDown();
+		await(STATUS);
+		assertEquals(asList("cancelled", "second"), runs);
+		assertFalse(second.isCancelled());
+	}
+
+	@Test
+	@SuppressWarnings("try")
+	public void test_that_cancelling_running_tasks_stops_their_blocking_work() throws Exception
+	{
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch stopped = new CountDownLatch(1);
+		worker.submit(STATUS, "refresh", handle ->
+		{
+			try (Cancellation.Registration registration = Cancellation.onCancel(stopped::countDown))
+			{
+				started.countDown();
+				awaitUninterruptibly(stopped);
+				run(Thread.currentThread().isInterrupted() ? "interrupted" : "not interrupted");
+			}
+		});
+		assertTrue(started.await(5, SECONDS));
+
+		worker.submit(STATUS, "refresh", handle -> run(Thread.currentThread().isInterrupted() ? "interrupted" : "second"));
+
+		assertTrue(stopped.await(5, SECONDS));
+		await(STATUS);
+		assertEquals(asList("interrupted", "second"), runs);
+	}
+
+	@Test
+	public void test_that_cancelled_tasks_do_not_run() throws Exception
+	{
+		CountDownLatch blocked = block(STATUS);
+
+		TaskHandle handle = worker.submit(STATUS, h -> run("task"));
+		handle.cancel();
+
+		blocked.countDown();
+		await(STATUS);
+		assertTrue(runs.isEmpty());
+	}
+
+	@Test
+	public void test_that_lanes_do_not_block_each_other() throws Exception
+	{
+		CountDownLatch blocked = block(WRITE);
+
+		worker.submit(STATUS, handle -> run("status"));
+		await(STATUS);
+		assertEquals(asList("status"), runs);
+
+		blocked.countDown();
+	}
+
+	private synchronized void run(String name)
+	{
+		runs.add(name);
+	}
+
+	private CountDownLatch block(Lane lane)
+	{
+		CountDownLatch latch = new CountDownLatch(1);
+		worker.submit(lane, handle -> awaitUninterruptibly(latch));
+		return latch;
+	}
+
+	private void await(Lane lane) throws Exception
+	{
+		// Lanes run their tasks in order, so a marker task runs after everything submitted before it
+		lanes.get(lane).submit(() -> {}).get(5, SECONDS);
+	}
+
+	private static void awaitUninterruptibly(CountDownLatch latch)
+	{
+		boolean interrupted = false;
+		while (true)
+		{
+			try
+			{
+				latch.await();
+				break;
+			}
+			catch (InterruptedException e)
+			{
+				interrupted = true;
+			}
+		}
+		if (interrupted)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+}
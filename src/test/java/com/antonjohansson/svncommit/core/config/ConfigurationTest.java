@@ -32,6 +32,14 @@ public class ConfigurationTest extends Assert
 	{
 		Configuration configuration = new Configuration();
 		assertFalse(configuration.isReplicationEnabled());
+		assertFalse(configuration.isShellSessionEnabled());
+		assertFalse(configuration.isTextStatusEnabled());
+		assertFalse(configuration.isSvnKitEnabled());
+		assertFalse(configuration.isWcDbStatusEnabled());
+		assertFalse(configuration.isWatchEnabled());
+		assertEquals(4, configuration.getAsyncThreads());
+		assertEquals(0, configuration.getStallThreshold());
+		assertFalse(configuration.isStatisticsEnabled());
 	}
 
 	@Test
@@ -39,6 +47,14 @@ public class ConfigurationTest extends Assert
 	{
 		Configuration configuration = new Configuration(new File("src/test/resources/configuration.properties"));
 		assertTrue(configuration.isReplicationEnabled());
+		assertTrue(configuration.isShellSessionEnabled());
+		assertTrue(configuration.isTextStatusEnabled());
+		assertTrue(configuration.isSvnKitEnabled());
+		assertTrue(configuration.isWcDbStatusEnabled());
+		assertTrue(configuration.isWatchEnabled());
+		assertEquals(8, configuration.getAsyncThreads());
+		assertEquals(500, configuration.getStallThreshold());
+		assertTrue(configuration.isStatisticsEnabled());
 	}
 
 	@Test(expected = RuntimeException.class)
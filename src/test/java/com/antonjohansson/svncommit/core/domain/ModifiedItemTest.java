@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.domain;
+
+import static com.antonjohansson.svncommit.core.domain.DbUpdateLocation.NONE;
+import static com.antonjohansson.svncommit.core.domain.DbUpdateLocation.STRUCTURE;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.ADDED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.MODIFIED;
+import static java.util.Arrays.asList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link ModifiedItem}.
+ *
+ * @author Anton Johansson
+ */
+public class ModifiedItemTest extends Assert
+{
+	@Test
+	public void test_values_before_properties_are_created()
+	{
+		ModifiedItem item = new ModifiedItem("file.sql", MODIFIED);
+		item.setDoCommit(false);
+		item.setStatus(ADDED);
+		item.setReplication(STRUCTURE);
+
+		assertFalse(item.doCommitProperty().getValue());
+		assertEquals(ADDED, item.statusProperty().getValue());
+		assertEquals("file.sql", item.fileNameProperty().getValue());
+		assertEquals(STRUCTURE, item.replicationProperty().getValue());
+	}
+
+	@Test
+	public void test_do_commit_listener()
+	{
+		List<Boolean> changes = new ArrayList<>();
+		ModifiedItem item = new ModifiedItem("file.sql", MODIFIED);
+		item.setDoCommitListener(changes::add);
+
+		item.setDoCommit(true);
+		item.setDoCommit(false);
+		item.doCommitProperty().setValue(true);
+		item.setDoCommit(true);
+		item.setDoCommitListener(null);
+		item.setDoCommit(false);
+
+		assertEquals(asList(false, true), changes);
+	}
+
+	@Test
+	public void test_values_after_properties_are_created()
+	{
+		ModifiedItem item = new ModifiedItem("file.sql", MODIFIED);
+		assertEquals(NONE, item.replicationProperty().getValue());
+
+		item.doCommitProperty().setValue(false);
+		item.statusProperty().setValue(ADDED);
+		item.fileNameProperty().setValue("other.sql");
+		item.replicationProperty().setValue(STRUCTURE);
+
+		assertFalse(item.isDoCommit());
+		assertEquals(ADDED, item.getStatus());
+		assertEquals("other.sql", item.getFileName());
+		assertEquals(STRUCTURE, item.getReplication());
+
+		item.setDoCommit(true);
+		assertTrue(item.doCommitProperty().getValue());
+	}
+}
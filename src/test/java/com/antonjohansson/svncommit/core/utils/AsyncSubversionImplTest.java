@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.utils;
+
+import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+
+import static com.antonjohansson.svncommit.core.domain.FileStatus.MODIFIED;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.commons.io.IOUtils.readLines;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+/**
+ * Unit tests of {@link AsyncSubversionImpl}.
+ *
+ * @author Anton Johansson
+ */
+public class AsyncSubversionImplTest extends Assert
+{
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+	private final Shell shell = new DirectShell(new File("."));
+	private final CountDownLatch started = new CountDownLatch(1);
+	private final CountDownLatch stopped = new CountDownLatch(1);
+	private @Mock Subversion subversion;
+	private AsyncSubversion async;
+
+	@Before
+	public void setUp()
+	{
+		initMocks(this);
+		async = new AsyncSubversionImpl(subversion, executor, timer);
+
+		// Stands in for a long-running svn process
+		doAnswer(invocation ->
+		{
+			started.countDown();
+			try
+			{
+				shell.execute(s -> readLines(s), "sleep", "30");
+			}
+			finally
+			{
+				stopped.countDown();
+			}
+			return null;
+		}).when(subversion).readModifiedItems(any());
+	}
+
+	@After
+	public void tearDown()
+	{
+		executor.shutdownNow();
+		timer.shutdownNow();
+	}
+
+	@Test
+	public void test_getModifiedItems() throws Exception
+	{
+		Collection<ModifiedItem> items = asList(new ModifiedItem("file", MODIFIED));
+		when(subversion.getModifiedItems()).thenReturn(items);
+
+		assertSame(items, async.getModifiedItems().get(5, SECONDS));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void test_that_outcomes_complete_the_future() throws Exception
+	{
+		doAnswer(invocation ->
+		{
+			((Consumer<String>) invocation.getArguments()[2]).accept("Committed revision 2.");
+			((Consumer<Boolean>) invocation.getArguments()[3]).accept(true);
+			return null;
+		}).when(subversion).commit(eq("message"), eq(asList("file")), any(), any());
+
+		StringBuilder output = new StringBuilder();
+		assertTrue(async.commit("message", asList("file"), output::append).get(5, SECONDS));
+		assertEquals("Committed revision 2.", output.toString());
+	}
+
+	@Test
+	public void test_that_failures_complete_the_future_exceptionally() throws Exception
+	{
+		doThrow(new RuntimeException("Could not add")).when(subversion).add(asList("file"));
+
+		try
+		{
+			async.add(asList("file")).get(5, SECONDS);
+			fail("Expected an exception");
+		}
+		catch (ExecutionException e)
+		{
+			assertEquals("Could not add", e.getCause().getMessage());
+		}
+	}
+
+	@Test
+	public void test_that_cancelling_kills_the_process() throws Exception
+	{
+		CompletableFuture<Void> future = async.readModifiedItems(item -> {});
+		awaitStarted();
+
+		future.cancel(true);
+
+		assertTrue("The process was not killed", stopped.await(5, SECONDS));
+	}
+
+	@Test
+	public void test_that_timeouts_kill_the_process() throws Exception
+	{
+		CompletableFuture<Void> future = async.withTimeout(100, MILLISECONDS).readModifiedItems(item -> {});
+
+		try
+		{
+			future.get(5, SECONDS);
+			fail("Expected a timeout");
+		}
+		catch (ExecutionException e)
+		{
+			assertTrue(e.getCause() instanceof TimeoutException);
+		}
+		assertTrue("The process was not killed", stopped.await(5, SECONDS));
+	}
+
+	private void awaitStarted() throws InterruptedException
+	{
+		assertTrue(started.await(5, SECONDS));
+	}
+}
@@ -0,0 +1,195 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.utils;
+
+import com.antonjohansson.svncommit.core.concurrent.DummyWorker;
+
+import static java.lang.System.lineSeparator;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.apache.commons.io.IOUtils.readLines;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.io.IOUtils;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link BashSession}.
+ *
+ * @author Anton Johansson
+ */
+public class BashSessionTest extends Assert
+{
+	private final BashSession shell = new BashSession(new File("."), new DummyWorker());
+
+	@After
+	public void tearDown()
+	{
+		shell.close();
+	}
+
+	@Test
+	public void test_that_consecutive_commands_use_the_same_process()
+	{
+		List<String> first = shell.execute(s -> readLines(s), "bash", "-c", "echo $PPID");
+		List<String> second = shell.execute(s -> readLines(s), "bash", "-c", "echo $PPID");
+
+		assertEquals(first, second);
+	}
+
+	@Test
+	public void test_commandLine()
+	{
+		assertEquals("'svn' 'add' 'some file.txt'", BashSession.commandLine("svn", "add", "some file.txt"));
+	}
+
+	@Test
+	public void test_commandLine_with_quotes()
+	{
+		assertEquals("'svn' 'add' 'it'\\''s.txt'", BashSession.commandLine("svn", "add", "it's.txt"));
+	}
+
+	@Test
+	public void test_that_arguments_are_quoted()
+	{
+		List<String> actual = shell.execute(s -> readLines(s), "echo", "it's a \"file\".txt");
+		assertEquals(asList("it's a \"file\".txt"), actual);
+	}
+
+	@Test
+	public void test_executeAndPipeOutput()
+	{
+		List<String> output = new ArrayList<>();
+		List<String> errors = new ArrayList<>();
+		AtomicBoolean success = new AtomicBoolean(false);
+
+		shell.executeAndPipeOutput(output::add, errors::add, success::set, "bash", "-c", "echo out; echo err >&2; printf partial");
+
+		assertEquals(asList("out" + lineSeparator(), "partial"), output);
+		assertEquals(asList("err" + lineSeparator()), errors);
+		assertTrue(success.get());
+	}
+
+	@Test
+	public void test_executeAndPipeOutput_with_failing_command()
+	{
+		AtomicBoolean success = new AtomicBoolean(true);
+
+		shell.executeAndPipeOutput(o -> {}, e -> {}, success::set, "bash", "-c", "exit 3");
+
+		assertFalse(success.get());
+	}
+
+	@Test
+	public void test_that_session_is_restarted_after_crash()
+	{
+		try
+		{
+			shell.executeAndPipeOutput(o -> {}, e -> {}, s -> {}, "bash", "-c", "kill -9 $PPID");
+			fail("Expected the session to terminate");
+		}
+		catch (RuntimeException e)
+		{
+			assertEquals("The shell session terminated unexpectedly", e.getMessage());
+		}
+
+		List<String> actual = shell.execute(s -> readLines(s), "echo", "alive");
+		assertEquals(asList("alive"), actual);
+	}
+
+	@Test
+	public void test_that_output_is_passed_on_while_the_command_runs()
+	{
+		// The second line is not printed until the first one has been read
+		String actual = shell.execute(s ->
+		{
+			BufferedReader reader = new BufferedReader(new InputStreamReader(s));
+			String first = reader.readLine();
+			new File("first-line-read").createNewFile();
+			return first + "," + reader.readLine();
+		}, "bash", "-c", "echo first; while [ ! -e first-line-read ]; do sleep 0.01; done; rm first-line-read; echo second");
+
+		assertEquals("first,second", actual);
+	}
+
+	@Test
+	public void test_that_execute_keeps_output_without_trailing_line_break()
+	{
+		String actual = shell.execute(s -> IOUtils.toString(s), "printf", "a\n\nb");
+		assertEquals("a\n\nb", actual);
+	}
+
+	@Test
+	public void test_that_failing_command_throws_its_error_output()
+	{
+		try
+		{
+			shell.execute(s -> readLines(s), "bash", "-c", "echo out; echo 'svn: E155004: locked' >&2; exit 1");
+			fail("Expected the command to fail");
+		}
+		catch (RuntimeException e)
+		{
+			assertEquals("svn: E155004: locked", e.getMessage());
+		}
+
+		List<String> actual = shell.execute(s -> readLines(s), "echo", "next");
+		assertEquals(asList("next"), actual);
+	}
+
+	@Test
+	public void test_that_close_does_not_wait_for_running_command() throws Exception
+	{
+		AtomicReference<RuntimeException> failure = new AtomicReference<>();
+		Thread thread = new Thread(() ->
+		{
+			try
+			{
+				shell.execute(s -> readLines(s), "sleep", "30");
+			}
+			catch (RuntimeException e)
+			{
+				failure.set(e);
+			}
+		});
+		thread.start();
+		Thread.sleep(200);
+
+		long start = System.nanoTime();
+		shell.close();
+		thread.join(5000);
+
+		assertTrue(NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+		assertFalse(thread.isAlive());
+		assertNotNull(failure.get());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void test_that_closed_session_cannot_be_used()
+	{
+		shell.close();
+		shell.execute(s -> readLines(s), "echo", "closed");
+	}
+}
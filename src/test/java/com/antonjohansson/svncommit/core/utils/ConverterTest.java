@@ -19,9 +19,11 @@ import com.antonjohansson.svncommit.core.domain.FileStatus;
 import com.antonjohansson.svncommit.core.domain.ModifiedItem;
 
 import static com.antonjohansson.svncommit.core.domain.FileStatus.ADDED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.CONFLICTED;
 import static com.antonjohansson.svncommit.core.domain.FileStatus.DELETED;
 import static com.antonjohansson.svncommit.core.domain.FileStatus.MISSING;
 import static com.antonjohansson.svncommit.core.domain.FileStatus.MODIFIED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.NORMAL;
 import static com.antonjohansson.svncommit.core.domain.FileStatus.UNVERSIONED;
 
 import org.junit.Assert;
@@ -70,6 +72,32 @@ public class ConverterTest extends Assert
 		assertConversion('!', MISSING);
 	}
 
+	@Test
+	public void test_that_conflicted_file_is_converted()
+	{
+		assertConversion('C', CONFLICTED);
+	}
+
+	@Test
+	public void test_that_all_columns_are_converted()
+	{
+		ModifiedItem item = Converter.modifiedItem(" ML   C some/directory");
+
+		assertEquals("some/directory", item.getFileName());
+		assertEquals(NORMAL, item.getStatus());
+		assertEquals(MODIFIED, item.getPropertyStatus());
+		assertTrue(item.isLocked());
+		assertTrue(item.isTreeConflicted());
+	}
+
+	@Test
+	public void test_that_path_with_leading_space_is_kept()
+	{
+		ModifiedItem item = Converter.modifiedItem("?        leading-space.txt");
+
+		assertEquals(" leading-space.txt", item.getFileName());
+	}
+
 	private void assertConversion(char statusCharacter, FileStatus status)
 	{
 		ModifiedItem item = Converter.modifiedItem(statusCharacter + "      some/file/path.txt");
@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.utils;
+
+import com.antonjohansson.svncommit.core.concurrent.OperationScheduler;
+
+import static java.lang.System.lineSeparator;
+import static java.util.Arrays.asList;
+import static org.apache.commons.io.IOUtils.readLines;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests of {@link DirectShell}.
+ *
+ * @author Anton Johansson
+ */
+public class DirectShellTest extends Assert
+{
+	private final Shell shell = new DirectShell(new File("."));
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void test_that_arguments_are_passed_without_quoting()
+	{
+		List<String> actual = shell.execute(s -> readLines(s), "echo", "it's a \"file\".txt");
+		assertEquals(asList("it's a \"file\".txt"), actual);
+	}
+
+	@Test
+	public void test_that_failing_commands_throw_their_error_output()
+	{
+		try
+		{
+			shell.execute(s -> readLines(s), "bash", "-c", "echo out; echo 'svn: E155010: not found' >&2; exit 1");
+			fail("Expected the command to fail");
+		}
+		catch (RuntimeException e)
+		{
+			assertEquals("svn: E155010: not found", e.getMessage());
+		}
+	}
+
+	@Test
+	public void test_that_locked_working_copies_are_retried() throws Exception
+	{
+		File marker = new File(folder.getRoot(), "locked-once");
+		String script = "if [ -e '" + marker + "' ]; then echo unlocked; else touch '" + marker + "'; echo 'svn: E155004: Working copy locked' >&2; exit 1; fi";
+		OperationScheduler scheduler = new OperationScheduler();
+
+		List<String> actual = scheduler.read(() -> shell.execute(s -> readLines(s), "bash", "-c", script));
+
+		assertEquals(asList("unlocked"), actual);
+	}
+
+	@Test
+	public void test_executeAndPipeOutput()
+	{
+		List<String> output = new ArrayList<>();
+		List<String> errors = new ArrayList<>();
+		AtomicBoolean success = new AtomicBoolean(false);
+
+		shell.executeAndPipeOutput(output::add, errors::add, success::set, "bash", "-c", "echo out; echo err >&2");
+
+		assertEquals(asList("out" + lineSeparator()), output);
+		assertEquals(asList("err" + lineSeparator()), errors);
+		assertTrue(success.get());
+	}
+
+	@Test
+	public void test_executeAndPipeOutput_with_failing_command()
+	{
+		AtomicBoolean success = new AtomicBoolean(true);
+
+		shell.executeAndPipeOutput(o -> {}, e -> {}, success::set, "bash", "-c", "exit 1");
+
+		assertFalse(success.get());
+	}
+
+	@Test
+	public void test_that_commands_are_not_run_on_the_fx_thread() throws Exception
+	{
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread thread = new Thread(() ->
+		{
+			try
+			{
+				shell.execute(s -> readLines(s), "echo", "frozen");
+			}
+			catch (AssertionError e)
+			{
+				failure.set(e);
+			}
+		}, "JavaFX Application Thread");
+		thread.start();
+		thread.join();
+
+		assertNotNull("Expected the guard to fail, are assertions enabled?", failure.get());
+	}
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.utils;
+
+import static java.lang.System.lineSeparator;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link StreamPump}.
+ *
+ * @author Anton Johansson
+ */
+public class StreamPumpTest extends Assert
+{
+	@Test
+	public void test_that_output_is_framed_into_lines() throws Exception
+	{
+		List<String> lines = new ArrayList<>();
+		InputStream stream = new ByteArrayInputStream("first\nsecond\nlast".getBytes(UTF_8));
+
+		new StreamPump(stream, UTF_8, lines::add, new Object()).pump();
+
+		assertEquals(asList("first" + lineSeparator(), "second" + lineSeparator(), "last" + lineSeparator()), lines);
+	}
+
+	@Test
+	public void test_that_multi_byte_characters_split_across_reads_are_decoded() throws Exception
+	{
+		List<String> lines = new ArrayList<>();
+		InputStream stream = new OneByteAtATimeStream("Updated 'åäö.txt'\n".getBytes(UTF_8));
+
+		StreamPump pump = new StreamPump(stream, UTF_8, lines::add, new Object());
+		pump.start();
+		pump.await();
+
+		assertEquals(asList("Updated 'åäö.txt'" + lineSeparator()), lines);
+	}
+
+	/**
+	 * Stream that only returns a single byte for each read.
+	 *
+	 * @author Anton Johansson
+	 */
+	private static class OneByteAtATimeStream extends FilterInputStream
+	{
+		private OneByteAtATimeStream(byte[] data)
+		{
+			super(new ByteArrayInputStream(data));
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException
+		{
+			return super.read(buffer, offset, Math.min(length, 1));
+		}
+	}
+}
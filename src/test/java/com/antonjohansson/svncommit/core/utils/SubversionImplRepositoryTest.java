@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.utils;
+
+import com.antonjohansson.svncommit.core.config.Configuration;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.io.FileUtils.writeStringToFile;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.tmatesoft.svn.core.SVNDepth.INFINITY;
+import static org.tmatesoft.svn.core.wc.SVNRevision.HEAD;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+import org.tmatesoft.svn.core.wc.SVNClientManager;
+
+/**
+ * Tests of {@link SubversionImpl} against a local {@code file://} repository,
+ * using the {@code svn} command line client. Skipped if it is not installed.
+ *
+ * @author Anton Johansson
+ */
+public class SubversionImplRepositoryTest extends Assert
+{
+	private static final int DIRECTORIES = 50;
+	private static final int FILES_PER_DIRECTORY = 1000;
+
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+	private final TemporaryFiles temporaryFiles = new TemporaryFiles();
+	private File workingCopy;
+	private Subversion subversion;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		assumeTrue(isSvnInstalled());
+
+		SVNURL url = SVNRepositoryFactory.createLocalRepository(folder.newFolder("repository"), true, false);
+		workingCopy = folder.newFolder("working-copy");
+		SVNClientManager manager = SVNClientManager.newInstance();
+		try
+		{
+			manager.getUpdateClient().doCheckout(url, workingCopy, HEAD, HEAD, INFINITY, false);
+		}
+		finally
+		{
+			manager.dispose();
+		}
+		subversion = new SubversionImpl(new DirectShell(workingCopy), mock(Configuration.class), temporaryFiles);
+	}
+
+	@Test
+	public void test_commit_of_50000_files() throws Exception
+	{
+		List<String> directories = new ArrayList<>();
+		List<String> paths = new ArrayList<>();
+		for (int directory = 0; directory < DIRECTORIES; directory++)
+		{
+			String directoryName = "directory-" + directory;
+			directories.add(directoryName);
+			paths.add(directoryName);
+			for (int file = 0; file < FILES_PER_DIRECTORY; file++)
+			{
+				String path = directoryName + "/file-" + file + ".txt";
+				writeStringToFile(new File(workingCopy, path), path, UTF_8);
+				paths.add(path);
+			}
+		}
+
+		subversion.add(directories);
+		assertEquals(paths.size(), subversion.getModifiedItems().size());
+
+		StringBuilder output = new StringBuilder();
+		AtomicBoolean success = new AtomicBoolean(false);
+		subversion.commit("Commit of many files", paths, output::append, success::set);
+
+		assertTrue(output.toString(), success.get());
+		assertTrue(output.toString().contains("Committed revision 1."));
+		assertEquals(0, subversion.getModifiedItems().size());
+		assertEquals(0, temporaryFiles.getExistingFiles());
+	}
+
+	private static boolean isSvnInstalled()
+	{
+		try
+		{
+			return new ProcessBuilder("svn", "--version", "--quiet").start().waitFor() == 0;
+		}
+		catch (IOException e)
+		{
+			return false;
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+}
@@ -15,21 +15,32 @@
  */
 package com.antonjohansson.svncommit.core.utils;
 
+import com.antonjohansson.svncommit.core.config.Configuration;
 import com.antonjohansson.svncommit.core.domain.ModifiedItem;
 
 import static com.antonjohansson.svncommit.core.domain.FileStatus.ADDED;
 import static com.antonjohansson.svncommit.core.domain.FileStatus.MODIFIED;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.charset.Charset.defaultCharset;
 import static java.util.Arrays.asList;
+import static org.apache.commons.io.FileUtils.readLines;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
@@ -48,20 +59,55 @@ import org.mockito.stubbing.Answer;
 public class SubversionImplTest extends Assert
 {
 	@Mock private Shell shell;
+	@Mock private Configuration configuration;
+	private final TemporaryFiles temporaryFiles = new TemporaryFiles();
+	private final List<List<String>> temporaryFileContents = new ArrayList<>();
 	private Subversion subversion;
 
 	@Before
 	public void setUp()
 	{
 		initMocks(this);
-		subversion = new SubversionImpl(shell);
+		subversion = new SubversionImpl(shell, configuration, temporaryFiles);
 	}
 
 	@Test
 	@SuppressWarnings("unchecked")
 	public void test_getModifiedItems()
 	{
-		when(shell.execute(any(ThrowingFunction.class), eq("svn status"))).thenReturn(asList("A     test.txt", "M     modified-item.txt"));
+		String xml = "<status><target path=\".\">"
+				+ "<entry path=\"test.txt\"><wc-status item=\"added\" props=\"none\"/></entry>"
+				+ "<entry path=\"modified-item.txt\"><wc-status item=\"modified\" props=\"none\"/></entry>"
+				+ "</target></status>";
+
+		Answer<Object> answer = invocation ->
+		{
+			ThrowingFunction<InputStream, ?, IOException> function = (ThrowingFunction<InputStream, ?, IOException>) invocation.getArguments()[0];
+			return function.apply(new ByteArrayInputStream(xml.getBytes(UTF_8)));
+		};
+		when(shell.execute(any(ThrowingFunction.class), eq("svn"), eq("status"), eq("--xml"))).thenAnswer(answer);
+
+		Collection<ModifiedItem> actual = subversion.getModifiedItems();
+		Collection<ModifiedItem> expected = asList(
+				new ModifiedItem("test.txt", ADDED),
+				new ModifiedItem("modified-item.txt", MODIFIED));
+
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void test_getModifiedItems_with_text_status()
+	{
+		String text = "A       test.txt\nM       modified-item.txt\n";
+
+		Answer<Object> answer = invocation ->
+		{
+			ThrowingFunction<InputStream, ?, IOException> function = (ThrowingFunction<InputStream, ?, IOException>) invocation.getArguments()[0];
+			return function.apply(new ByteArrayInputStream(text.getBytes()));
+		};
+		when(configuration.isTextStatusEnabled()).thenReturn(true);
+		when(shell.execute(any(ThrowingFunction.class), eq("svn"), eq("status"))).thenAnswer(answer);
 
 		Collection<ModifiedItem> actual = subversion.getModifiedItems();
 		Collection<ModifiedItem> expected = asList(
@@ -71,6 +117,29 @@ public class SubversionImplTest extends Assert
 		assertEquals(expected, actual);
 	}
 
+	@Test
+	@SuppressWarnings("unchecked")
+	public void test_getModifiedItems_of_directories()
+	{
+		String xml = "<status><target path=\"src\">"
+				+ "<entry path=\"src/test.txt\"><wc-status item=\"added\" props=\"none\"/></entry>"
+				+ "</target></status>";
+
+		Answer<Object> answer = invocation ->
+		{
+			readTemporaryFile(invocation.getArguments()[7]);
+			ThrowingFunction<InputStream, ?, IOException> function = (ThrowingFunction<InputStream, ?, IOException>) invocation.getArguments()[0];
+			return function.apply(new ByteArrayInputStream(xml.getBytes(UTF_8)));
+		};
+		when(shell.execute(any(ThrowingFunction.class), eq("svn"), eq("status"), eq("--xml"), eq("--depth"), eq("immediates"), eq("--targets"), anyString())).thenAnswer(answer);
+
+		Collection<ModifiedItem> actual = subversion.getModifiedItems(asList("src", "."));
+
+		assertEquals(asList(new ModifiedItem("src/test.txt", ADDED)), actual);
+		assertEquals(asList(asList("src", ".")), temporaryFileContents);
+		assertEquals(0, temporaryFiles.getExistingFiles());
+	}
+
 	@Test
 	@SuppressWarnings("unchecked")
 	public void test_update()
@@ -87,7 +156,7 @@ public class SubversionImplTest extends Assert
 
 			return null;
 		};
-		doAnswer(answer).when(shell).executeAndPipeOutput(any(), any(), any(), eq("svn update"));
+		doAnswer(answer).when(shell).executeAndPipeOutput(any(), any(), any(), eq("svn"), eq("update"));
 
 		AtomicReference<String> output = new AtomicReference<>("");
 		AtomicBoolean success = new AtomicBoolean(false);
@@ -103,7 +172,7 @@ public class SubversionImplTest extends Assert
 	{
 		subversion.compare("some-file.txt");
 
-		verify(shell).execute("meld 'some-file.txt'");
+		verify(shell).execute("meld", "some-file.txt");
 		verifyNoMoreInteractions(shell);
 	}
 
@@ -111,13 +180,13 @@ public class SubversionImplTest extends Assert
 	@SuppressWarnings("unchecked")
 	public void test_commit()
 	{
-		final String commitCommand = "svn commit --file '/file-with-message' 'test1.txt' 'test2.txt'";
-
 		Answer<Void> answer = invocation ->
 		{
 			Consumer<String> onData = (Consumer<String>) invocation.getArguments()[0];
 			Consumer<String> onError = (Consumer<String>) invocation.getArguments()[1];
 			Consumer<Boolean> onComplete = (Consumer<Boolean>) invocation.getArguments()[2];
+			readTemporaryFile(invocation.getArguments()[6]);
+			readTemporaryFile(invocation.getArguments()[8]);
 
 			onData.accept("success-line");
 			onError.accept("error-line");
@@ -125,9 +194,7 @@ public class SubversionImplTest extends Assert
 
 			return null;
 		};
-		doAnswer(answer).when(shell).executeAndPipeOutput(any(), any(), any(), eq(commitCommand));
-
-		when(shell.getTemporaryFile(asList("some-commit-message"), "commit-message")).thenReturn(new File("/file-with-message"));
+		doAnswer(answer).when(shell).executeAndPipeOutput(any(), any(), any(), eq("svn"), eq("commit"), eq("--file"), anyString(), eq("--targets"), anyString());
 
 		AtomicReference<String> output = new AtomicReference<>("");
 		AtomicBoolean success = new AtomicBoolean(false);
@@ -138,8 +205,93 @@ public class SubversionImplTest extends Assert
 				o -> output.set(output.get().concat(o)),
 				s -> success.set(s));
 
-		verify(shell).executeAndPipeOutput(any(), any(), any(), eq(commitCommand));
 		assertEquals("success-lineerror-line", output.get());
 		assertTrue(success.get());
+		assertEquals(asList(asList("some-commit-message"), asList("test1.txt", "test2.txt")), temporaryFileContents);
+		assertEquals(2, temporaryFiles.getCreatedFiles());
+		assertEquals(0, temporaryFiles.getExistingFiles());
+	}
+
+	@Test
+	public void test_commit_deletes_temporary_files_on_failure()
+	{
+		doThrow(new RuntimeException("Could not execute command")).when(shell).executeAndPipeOutput(any(), any(), any(), eq("svn"), eq("commit"), eq("--file"), anyString(), eq("--targets"), anyString());
+
+		try
+		{
+			subversion.commit("some-commit-message", asList("test1.txt"), o -> {}, s -> {});
+			fail("Expected an exception");
+		}
+		catch (RuntimeException e)
+		{
+			assertEquals("Could not execute command", e.getMessage());
+		}
+
+		assertEquals(2, temporaryFiles.getCreatedFiles());
+		assertEquals(0, temporaryFiles.getExistingFiles());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void test_add()
+	{
+		doAnswer(invocation -> complete(invocation.getArguments(), true)).when(shell).executeAndPipeOutput(any(Consumer.class), any(Consumer.class), any(Consumer.class), eq("svn"), eq("add"), eq("--targets"), anyString());
+
+		subversion.add(asList("it's a file.txt", "other.txt"));
+
+		verify(shell).executeAndPipeOutput(any(Consumer.class), any(Consumer.class), any(Consumer.class), eq("svn"), eq("add"), eq("--targets"), anyString());
+		verifyNoMoreInteractions(shell);
+		assertEquals(asList(asList("it's a file.txt", "other.txt")), temporaryFileContents);
+		assertEquals(0, temporaryFiles.getExistingFiles());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void test_delete()
+	{
+		doAnswer(invocation -> complete(invocation.getArguments(), true)).when(shell).executeAndPipeOutput(any(Consumer.class), any(Consumer.class), any(Consumer.class), eq("svn"), eq("delete"), eq("--targets"), anyString());
+
+		subversion.delete(asList("missing.txt", "other.txt"));
+
+		verify(shell).executeAndPipeOutput(any(Consumer.class), any(Consumer.class), any(Consumer.class), eq("svn"), eq("delete"), eq("--targets"), anyString());
+		verifyNoMoreInteractions(shell);
+		assertEquals(asList(asList("missing.txt", "other.txt")), temporaryFileContents);
+		assertEquals(0, temporaryFiles.getExistingFiles());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void test_that_failing_add_throws_its_error_output()
+	{
+		doAnswer(invocation ->
+		{
+			((Consumer<String>) invocation.getArguments()[1]).accept("svn: E155010: The node 'gone.txt' was not found." + System.lineSeparator());
+			return complete(invocation.getArguments(), false);
+		}).when(shell).executeAndPipeOutput(any(Consumer.class), any(Consumer.class), any(Consumer.class), eq("svn"), eq("add"), eq("--targets"), anyString());
+
+		try
+		{
+			subversion.add(asList("gone.txt"));
+			fail("Expected the add to fail");
+		}
+		catch (RuntimeException e)
+		{
+			assertEquals("svn: E155010: The node 'gone.txt' was not found.", e.getMessage());
+		}
+		assertEquals(0, temporaryFiles.getExistingFiles());
+	}
+
+	@SuppressWarnings("unchecked")
+	private Void complete(Object[] arguments, boolean success) throws IOException
+	{
+		readTemporaryFile(arguments[6]);
+		((Consumer<Boolean>) arguments[2]).accept(success);
+		return null;
+	}
+
+	private Void readTemporaryFile(Object path) throws IOException
+	{
+		temporaryFileContents.add(readLines(new File((String) path), defaultCharset()));
+		return null;
 	}
 }
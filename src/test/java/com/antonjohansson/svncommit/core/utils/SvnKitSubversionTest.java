@@ -0,0 +1,202 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.utils;
+
+import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+
+import static com.antonjohansson.svncommit.core.domain.FileStatus.ADDED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.DELETED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.MODIFIED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.UNVERSIONED;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.apache.commons.io.FileUtils.readFileToString;
+import static org.apache.commons.io.FileUtils.writeStringToFile;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.tmatesoft.svn.core.SVNDepth.INFINITY;
+import static org.tmatesoft.svn.core.wc.SVNRevision.HEAD;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+import org.tmatesoft.svn.core.wc.SVNClientManager;
+
+/**
+ * Unit tests of {@link SvnKitSubversion}, using a local {@code file://} repository.
+ *
+ * @author Anton Johansson
+ */
+public class SvnKitSubversionTest extends Assert
+{
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+	private final Shell shell = mock(Shell.class);
+	private SVNURL url;
+	private File workingCopy;
+	private Subversion subversion;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		url = SVNRepositoryFactory.createLocalRepository(folder.newFolder("repository"), true, false);
+		workingCopy = checkout("working-copy");
+		subversion = new SvnKitSubversion(workingCopy, shell);
+	}
+
+	@Test
+	public void test_status_of_unversioned_file() throws Exception
+	{
+		writeStringToFile(new File(workingCopy, "new.txt"), "content", UTF_8);
+
+		assertStatus(new ModifiedItem("new.txt", UNVERSIONED));
+	}
+
+	@Test
+	public void test_status_of_directories() throws Exception
+	{
+		new File(workingCopy, "directory/subdirectory").mkdirs();
+		writeStringToFile(new File(workingCopy, "directory/subdirectory/deep.txt"), "content", UTF_8);
+		writeStringToFile(new File(workingCopy, "new.txt"), "content", UTF_8);
+		subversion.add(asList("directory"));
+
+		Collection<ModifiedItem> actual = subversion.getModifiedItems(asList("directory"));
+
+		assertEquals(asList(
+				new ModifiedItem("directory", ADDED),
+				new ModifiedItem("directory/subdirectory", ADDED)), new ArrayList<>(actual));
+	}
+
+	@Test
+	public void test_status_under_directories() throws Exception
+	{
+		new File(workingCopy, "directory/subdirectory").mkdirs();
+		writeStringToFile(new File(workingCopy, "directory/subdirectory/deep.txt"), "content", UTF_8);
+		writeStringToFile(new File(workingCopy, "new.txt"), "content", UTF_8);
+		subversion.add(asList("directory"));
+
+		Collection<ModifiedItem> actual = subversion.getModifiedItemsUnder(asList("directory"));
+
+		assertEquals(asList(
+				new ModifiedItem("directory", ADDED),
+				new ModifiedItem("directory/subdirectory", ADDED),
+				new ModifiedItem("directory/subdirectory/deep.txt", ADDED)), new ArrayList<>(actual));
+	}
+
+	@Test
+	public void test_add() throws Exception
+	{
+		writeStringToFile(new File(workingCopy, "new.txt"), "content", UTF_8);
+
+		subversion.add(asList("new.txt"));
+
+		assertStatus(new ModifiedItem("new.txt", ADDED));
+	}
+
+	@Test
+	public void test_commit_and_update() throws Exception
+	{
+		writeStringToFile(new File(workingCopy, "file.txt"), "first", UTF_8);
+		subversion.add(asList("file.txt"));
+		assertTrue(commit("file.txt").contains("Committed revision 1."));
+
+		writeStringToFile(new File(workingCopy, "file.txt"), "second", UTF_8);
+		assertStatus(new ModifiedItem("file.txt", MODIFIED));
+		assertTrue(commit("file.txt").contains("Committed revision 2."));
+		assertStatus();
+
+		File otherWorkingCopy = checkout("other-working-copy");
+		subversion = new SvnKitSubversion(otherWorkingCopy, shell);
+		StringBuilder output = new StringBuilder();
+		AtomicBoolean success = new AtomicBoolean(false);
+		subversion.update(output::append, success::set);
+
+		assertTrue(success.get());
+		assertEquals("second", readFileToString(new File(otherWorkingCopy, "file.txt"), UTF_8));
+	}
+
+	@Test
+	public void test_delete() throws Exception
+	{
+		writeStringToFile(new File(workingCopy, "file.txt"), "content", UTF_8);
+		writeStringToFile(new File(workingCopy, "other.txt"), "content", UTF_8);
+		subversion.add(asList("file.txt", "other.txt"));
+		commit("file.txt", "other.txt");
+
+		subversion.delete(asList("file.txt", "other.txt"));
+
+		assertStatus(new ModifiedItem("other.txt", DELETED), new ModifiedItem("file.txt", DELETED));
+	}
+
+	@Test
+	public void test_commit_of_unversioned_file_fails()
+	{
+		AtomicBoolean success = new AtomicBoolean(true);
+
+		subversion.commit("message", singletonList("missing.txt"), o -> {}, success::set);
+
+		assertFalse(success.get());
+	}
+
+	@Test
+	public void test_compare()
+	{
+		subversion.compare("file.txt");
+
+		verify(shell).execute("meld", "file.txt");
+	}
+
+	private String commit(String... filePaths)
+	{
+		StringBuilder output = new StringBuilder();
+		AtomicBoolean success = new AtomicBoolean(false);
+		subversion.commit("Some message", asList(filePaths), output::append, success::set);
+		assertTrue(output.toString(), success.get());
+		return output.toString();
+	}
+
+	private void assertStatus(ModifiedItem... expected)
+	{
+		Collection<ModifiedItem> actual = subversion.getModifiedItems();
+		List<ModifiedItem> expectedItems = new ArrayList<>(asList(expected));
+		assertEquals(expectedItems, new ArrayList<>(actual));
+	}
+
+	private File checkout(String name) throws Exception
+	{
+		File directory = folder.newFolder(name);
+		SVNClientManager manager = SVNClientManager.newInstance();
+		try
+		{
+			manager.getUpdateClient().doCheckout(url, directory, HEAD, HEAD, INFINITY, false);
+		}
+		finally
+		{
+			manager.dispose();
+		}
+		return directory;
+	}
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.utils;
+
+import static java.nio.charset.Charset.defaultCharset;
+import static java.util.Arrays.asList;
+import static org.apache.commons.io.FileUtils.readLines;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link TemporaryFiles}.
+ *
+ * @author Anton Johansson
+ */
+public class TemporaryFilesTest extends Assert
+{
+	private final TemporaryFiles temporaryFiles = new TemporaryFiles();
+
+	@Test
+	public void test_create_and_delete() throws Exception
+	{
+		File file = temporaryFiles.create(asList("first.txt", "it's a file.txt"), "targets");
+
+		assertTrue(file.getName().startsWith("svn-commit-targets-"));
+		assertEquals(asList("first.txt", "it's a file.txt"), readLines(file, defaultCharset()));
+		assertEquals(1, temporaryFiles.getCreatedFiles());
+		assertEquals(file.length(), temporaryFiles.getWrittenBytes());
+		assertEquals(1, temporaryFiles.getExistingFiles());
+
+		temporaryFiles.delete(file);
+
+		assertFalse(file.exists());
+		assertEquals(0, temporaryFiles.getExistingFiles());
+	}
+
+	@Test
+	public void test_use()
+	{
+		AtomicReference<File> usedFile = new AtomicReference<>();
+
+		String result = temporaryFiles.use(asList("message"), "commit-message", file ->
+		{
+			usedFile.set(file);
+			assertTrue(file.exists());
+			return "result";
+		});
+
+		assertEquals("result", result);
+		assertFalse(usedFile.get().exists());
+		assertEquals(0, temporaryFiles.getExistingFiles());
+	}
+
+	@Test
+	public void test_use_deletes_the_file_on_failure()
+	{
+		AtomicReference<File> usedFile = new AtomicReference<>();
+
+		try
+		{
+			temporaryFiles.use(asList("message"), "commit-message", file ->
+			{
+				usedFile.set(file);
+				throw new RuntimeException("Failed");
+			});
+			fail("Expected an exception");
+		}
+		catch (RuntimeException e)
+		{
+			assertEquals("Failed", e.getMessage());
+		}
+
+		assertFalse(usedFile.get().exists());
+	}
+
+	@Test
+	public void test_deleteAll()
+	{
+		File first = temporaryFiles.create(asList("first"), "first");
+		File second = temporaryFiles.create(asList("second"), "second");
+
+		temporaryFiles.deleteAll();
+
+		assertFalse(first.exists());
+		assertFalse(second.exists());
+		assertEquals(2, temporaryFiles.getCreatedFiles());
+		assertEquals(0, temporaryFiles.getExistingFiles());
+	}
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.utils;
+
+import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+
+import static com.antonjohansson.svncommit.core.domain.FileStatus.ADDED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.CONFLICTED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.DELETED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.MODIFIED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.UNVERSIONED;
+import static org.apache.commons.lang3.StringUtils.repeat;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link TextStatusReader}.
+ *
+ * @author Anton Johansson
+ */
+public class TextStatusReaderTest extends Assert
+{
+	private final List<ModifiedItem> items = new ArrayList<>();
+
+	@Test
+	public void test_read() throws Exception
+	{
+		read("M       modified.txt\n"
+				+ "?       new file.txt\n"
+				+ "C       conflicted.sql\n"
+				+ "D     C tree-conflicted.txt\n"
+				+ "      >   local file edit, incoming file delete upon update\n"
+				+ "\n"
+				+ "--- Changelist 'feature':\n"
+				+ "A       added.txt");
+
+		assertEquals(5, items.size());
+		assertItem(0, "modified.txt", MODIFIED, null);
+		assertItem(1, "new file.txt", UNVERSIONED, null);
+		assertItem(2, "conflicted.sql", CONFLICTED, null);
+		assertItem(3, "tree-conflicted.txt", DELETED, null);
+		assertItem(4, "added.txt", ADDED, "feature");
+		assertTrue(items.get(3).isTreeConflicted());
+	}
+
+	@Test
+	public void test_read_with_windows_line_endings() throws Exception
+	{
+		read("M       first.txt\r\nM       second.txt\r\n");
+
+		assertItem(0, "first.txt", MODIFIED, null);
+		assertItem(1, "second.txt", MODIFIED, null);
+	}
+
+	@Test
+	public void test_read_with_lines_spanning_the_buffer() throws Exception
+	{
+		String longPath = repeat("directory/", 2000) + "file.txt";
+		StringBuilder output = new StringBuilder();
+		for (int index = 0; index < 1000; index++)
+		{
+			output.append("M       file-").append(index).append(".txt\n");
+		}
+		output.append("A       ").append(longPath).append("\n");
+
+		read(output.toString());
+
+		assertEquals(1001, items.size());
+		assertItem(999, "file-999.txt", MODIFIED, null);
+		assertItem(1000, longPath, ADDED, null);
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void test_that_unknown_line_causes_exception() throws Exception
+	{
+		read("some-unknown-line\n");
+	}
+
+	private void read(String output) throws Exception
+	{
+		TextStatusReader.read(new StringReader(output), items::add);
+	}
+
+	private void assertItem(int index, String path, Object status, String changelist)
+	{
+		ModifiedItem item = items.get(index);
+		assertEquals(path, item.getFileName());
+		assertEquals(status, item.getStatus());
+		assertEquals(changelist, item.getChangelist());
+	}
+}
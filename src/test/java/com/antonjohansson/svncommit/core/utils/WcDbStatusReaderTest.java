@@ -0,0 +1,333 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.utils;
+
+import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+
+import static com.antonjohansson.svncommit.core.domain.FileStatus.ADDED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.DELETED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.MISSING;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.MODIFIED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.NORMAL;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.UNVERSIONED;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.apache.commons.io.FileUtils.writeStringToFile;
+import static org.mockito.Mockito.mock;
+import static org.tmatesoft.svn.core.SVNDepth.EMPTY;
+import static org.tmatesoft.svn.core.SVNDepth.INFINITY;
+import static org.tmatesoft.svn.core.wc.SVNRevision.HEAD;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.tmatesoft.svn.core.SVNPropertyValue;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+import org.tmatesoft.svn.core.wc.SVNClientManager;
+
+/**
+ * Unit tests of {@link WcDbStatusReader}, using a local {@code file://} repository.
+ *
+ * @author Anton Johansson
+ */
+public class WcDbStatusReaderTest extends Assert
+{
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+	private File workingCopy;
+	private Subversion subversion;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		SVNURL url = SVNRepositoryFactory.createLocalRepository(folder.newFolder("repository"), true, false);
+		workingCopy = folder.newFolder("working-copy");
+		SVNClientManager manager = SVNClientManager.newInstance();
+		try
+		{
+			manager.getUpdateClient().doCheckout(url, workingCopy, HEAD, HEAD, INFINITY, false);
+		}
+		finally
+		{
+			manager.dispose();
+		}
+
+		subversion = new SvnKitSubversion(workingCopy, mock(Shell.class));
+		writeStringToFile(new File(workingCopy, "file.txt"), "content", UTF_8);
+		new File(workingCopy, "directory").mkdir();
+		writeStringToFile(new File(workingCopy, "directory/other.txt"), "other", UTF_8);
+		subversion.add(asList("file.txt"));
+		subversion.add(asList("directory"));
+		commit("file.txt", "directory", "directory/other.txt");
+	}
+
+	@Test
+	public void test_clean_working_copy() throws Exception
+	{
+		assertStatus(workingCopy);
+	}
+
+	@Test
+	public void test_unversioned_and_added() throws Exception
+	{
+		writeStringToFile(new File(workingCopy, "new.txt"), "new", UTF_8);
+		writeStringToFile(new File(workingCopy, "added.txt"), "added", UTF_8);
+		subversion.add(asList("added.txt"));
+
+		assertStatus(workingCopy,
+				new ModifiedItem("added.txt", ADDED),
+				new ModifiedItem("new.txt", UNVERSIONED));
+	}
+
+	@Test
+	public void test_modified_with_same_size() throws Exception
+	{
+		writeStringToFile(new File(workingCopy, "file.txt"), "CONTENT", UTF_8);
+
+		assertStatus(workingCopy, new ModifiedItem("file.txt", MODIFIED));
+	}
+
+	@Test
+	public void test_touched_but_unmodified() throws Exception
+	{
+		File file = new File(workingCopy, "file.txt");
+		assertTrue(file.setLastModified(file.lastModified() + 10000));
+
+		assertStatus(workingCopy);
+	}
+
+	@Test
+	public void test_missing_and_deleted() throws Exception
+	{
+		new File(workingCopy, "file.txt").delete();
+		subversion.delete(asList("directory/other.txt"));
+
+		assertStatus(workingCopy,
+				new ModifiedItem("directory/other.txt", DELETED),
+				new ModifiedItem("file.txt", MISSING));
+	}
+
+	@Test
+	public void test_ignored() throws Exception
+	{
+		setProperty(workingCopy, "svn:ignore", "*.log\ntarget\n");
+		writeStringToFile(new File(workingCopy, "output.log"), "log", UTF_8);
+		new File(workingCopy, "target").mkdir();
+		writeStringToFile(new File(workingCopy, "file.txt~"), "backup", UTF_8);
+
+		assertStatus(workingCopy, new ModifiedItem(".", NORMAL, MODIFIED));
+	}
+
+	@Test
+	public void test_property_modified() throws Exception
+	{
+		setProperty(new File(workingCopy, "file.txt"), "some:property", "value");
+
+		assertStatus(workingCopy, new ModifiedItem("file.txt", NORMAL, MODIFIED));
+	}
+
+	@Test
+	public void test_changelist() throws Exception
+	{
+		writeStringToFile(new File(workingCopy, "file.txt"), "changed", UTF_8);
+		SVNClientManager manager = SVNClientManager.newInstance();
+		try
+		{
+			manager.getChangelistClient().doAddToChangelist(new File[] {new File(workingCopy, "file.txt")}, EMPTY, "feature", null);
+		}
+		finally
+		{
+			manager.dispose();
+		}
+
+		ModifiedItem expected = new ModifiedItem("file.txt", MODIFIED);
+		expected.setChangelist("feature");
+		assertStatus(workingCopy, expected);
+	}
+
+	@Test
+	public void test_subdirectory() throws Exception
+	{
+		writeStringToFile(new File(workingCopy, "directory/other.txt"), "changed", UTF_8);
+		writeStringToFile(new File(workingCopy, "directory/new.txt"), "new", UTF_8);
+		writeStringToFile(new File(workingCopy, "new.txt"), "new", UTF_8);
+
+		assertStatus(new File(workingCopy, "directory"),
+				new ModifiedItem("new.txt", UNVERSIONED),
+				new ModifiedItem("other.txt", MODIFIED));
+	}
+
+	@Test
+	public void test_conflict_kinds()
+	{
+		assertEquals(new HashSet<>(asList("prop")), WcDbStatusReader.Skel.conflictKinds("((update (11 context.txt 1 2)) ((prop (16 context.txt.prej) () () ())))".getBytes(UTF_8)));
+		assertEquals(new HashSet<>(asList("text", "tree")), WcDbStatusReader.Skel.conflictKinds("((merge ((8 tree.txt))) ((text (8 tree.txt)) (tree () edited deleted)))".getBytes(UTF_8)));
+		assertEquals(new HashSet<>(), WcDbStatusReader.Skel.conflictKinds(null));
+	}
+
+	@Test
+	public void test_parallel_walk_matches_sequential_walk() throws Exception
+	{
+		List<String> paths = new ArrayList<>();
+		List<String> committed = new ArrayList<>(asList("tree"));
+		for (int directory = 0; directory < 8; directory++)
+		{
+			committed.add("tree/directory-" + directory);
+			for (int file = 0; file < 8; file++)
+			{
+				String path = "tree/directory-" + directory + "/file-" + file + ".txt";
+				writeStringToFile(new File(workingCopy, path), path, UTF_8);
+				paths.add(path);
+			}
+		}
+		committed.addAll(paths);
+		subversion.add(asList("tree"));
+		commit(committed.toArray(new String[0]));
+		for (int index = 0; index < paths.size(); index += 3)
+		{
+			writeStringToFile(new File(workingCopy, paths.get(index)), "changed", UTF_8);
+		}
+		writeStringToFile(new File(workingCopy, "tree/directory-5/new.txt"), "new", UTF_8);
+
+		List<ModifiedItem> sequential = new ArrayList<>();
+		List<ModifiedItem> parallel = new ArrayList<>();
+		ForkJoinPool single = new ForkJoinPool(1);
+		ForkJoinPool multiple = new ForkJoinPool(4);
+		try
+		{
+			WcDbStatusReader.read(workingCopy, sequential::add, single);
+			WcDbStatusReader.read(workingCopy, parallel::add, multiple);
+		}
+		finally
+		{
+			single.shutdown();
+			multiple.shutdown();
+		}
+
+		assertEquals(23, sequential.size());
+		assertEquals(sequential, parallel);
+	}
+
+	@Test
+	public void test_directories_match_filtered_walk() throws Exception
+	{
+		new File(workingCopy, "directory/nested").mkdir();
+		writeStringToFile(new File(workingCopy, "directory/nested/deep.txt"), "deep", UTF_8);
+		subversion.add(asList("directory/nested"));
+		commit("directory/nested", "directory/nested/deep.txt");
+		writeStringToFile(new File(workingCopy, "file.txt"), "changed", UTF_8);
+		writeStringToFile(new File(workingCopy, "directory/other.txt"), "changed", UTF_8);
+		writeStringToFile(new File(workingCopy, "directory/new.txt"), "new", UTF_8);
+		writeStringToFile(new File(workingCopy, "directory/nested/deep.txt"), "changed", UTF_8);
+		setProperty(new File(workingCopy, "directory/nested"), "some:property", "value");
+
+		List<String> directories = asList("directory", "directory/nested", "unversioned");
+		List<ModifiedItem> expected = new ArrayList<>();
+		WcDbStatusReader.read(workingCopy, item ->
+		{
+			if (item.isWithin(directories))
+			{
+				expected.add(item);
+			}
+		});
+		List<ModifiedItem> actual = new ArrayList<>();
+		WcDbStatusReader.read(workingCopy, directories, actual::add);
+
+		assertEquals(4, actual.size());
+		assertEquals(expected, actual);
+		for (int index = 0; index < expected.size(); index++)
+		{
+			assertEquals(expected.get(index).getStatus(), actual.get(index).getStatus());
+			assertEquals(expected.get(index).getPropertyStatus(), actual.get(index).getPropertyStatus());
+		}
+	}
+
+	@Test
+	public void test_under_matches_filtered_walk() throws Exception
+	{
+		new File(workingCopy, "directory/nested/deeper").mkdirs();
+		writeStringToFile(new File(workingCopy, "directory/nested/deeper/deep.txt"), "deep", UTF_8);
+		writeStringToFile(new File(workingCopy, "directory0.txt"), "sibling", UTF_8);
+		writeStringToFile(new File(workingCopy, "new.txt"), "new", UTF_8);
+		subversion.add(asList("directory/nested", "directory0.txt"));
+		subversion.delete(asList("file.txt"));
+
+		List<String> paths = asList("directory", "file.txt", "new.txt", "gone.txt");
+		List<ModifiedItem> expected = new ArrayList<>();
+		WcDbStatusReader.read(workingCopy, item ->
+		{
+			if (paths.stream().anyMatch(path -> item.getFileName().equals(path) || item.getFileName().startsWith(path + "/")))
+			{
+				expected.add(item);
+			}
+		});
+		List<ModifiedItem> actual = new ArrayList<>();
+		WcDbStatusReader.readUnder(workingCopy, paths, actual::add);
+
+		assertEquals(5, actual.size());
+		assertEquals(expected, actual);
+		for (int index = 0; index < expected.size(); index++)
+		{
+			assertEquals(expected.get(index).getStatus(), actual.get(index).getStatus());
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void test_unversioned_directory() throws Exception
+	{
+		File directory = new File(workingCopy, "unversioned");
+		directory.mkdir();
+
+		WcDbStatusReader.read(directory, item -> {});
+	}
+
+	private void commit(String... filePaths)
+	{
+		AtomicBoolean success = new AtomicBoolean(false);
+		subversion.commit("Some message", asList(filePaths), o -> {}, success::set);
+		assertTrue(success.get());
+	}
+
+	private void setProperty(File file, String name, String value) throws Exception
+	{
+		SVNClientManager manager = SVNClientManager.newInstance();
+		try
+		{
+			manager.getWCClient().doSetProperty(file, name, SVNPropertyValue.create(value), false, EMPTY, null, null);
+		}
+		finally
+		{
+			manager.dispose();
+		}
+	}
+
+	private void assertStatus(File path, ModifiedItem... expected) throws Exception
+	{
+		List<ModifiedItem> actual = new ArrayList<>();
+		WcDbStatusReader.read(path, actual::add);
+		assertEquals(asList(expected), actual);
+	}
+}
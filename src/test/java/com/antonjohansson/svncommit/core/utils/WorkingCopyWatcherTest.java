@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.utils;
+
+import com.antonjohansson.svncommit.core.concurrent.DummyWorker;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.commons.io.FileUtils.writeStringToFile;
+import static org.tmatesoft.svn.core.SVNDepth.INFINITY;
+import static org.tmatesoft.svn.core.wc.SVNRevision.HEAD;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+import org.tmatesoft.svn.core.wc.SVNClientManager;
+
+/**
+ * Unit tests of {@link WorkingCopyWatcher}.
+ *
+ * @author Anton Johansson
+ */
+public class WorkingCopyWatcherTest extends Assert
+{
+	private static final String FULL_SCAN = "<full scan>";
+
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+	private final BlockingQueue<Collection<String>> changes = new LinkedBlockingQueue<>();
+	private File workingCopy;
+	private WorkingCopyWatcher watcher;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		workingCopy = folder.getRoot();
+		new File(workingCopy, ".svn").mkdir();
+		new File(workingCopy, "directory/subdirectory").mkdirs();
+		watcher = new WorkingCopyWatcher(workingCopy, new DummyWorker());
+		assertTrue(watcher.start(changes::add, () -> changes.add(asList(FULL_SCAN))));
+		assertTrue(watcher.isWatching());
+	}
+
+	@After
+	public void tearDown()
+	{
+		watcher.close();
+	}
+
+	@Test
+	public void test_changed_directories() throws Exception
+	{
+		writeStringToFile(new File(workingCopy, "file.txt"), "content", UTF_8);
+		writeStringToFile(new File(workingCopy, "directory/subdirectory/file.txt"), "content", UTF_8);
+
+		assertEquals(asList(".", "directory/subdirectory"), new ArrayList<>(changes.poll(10, SECONDS)));
+	}
+
+	@Test
+	public void test_new_directories_are_watched() throws Exception
+	{
+		new File(workingCopy, "directory/new").mkdir();
+		assertEquals(asList("directory"), new ArrayList<>(changes.poll(10, SECONDS)));
+
+		writeStringToFile(new File(workingCopy, "directory/new/file.txt"), "content", UTF_8);
+		assertEquals(asList("directory/new"), new ArrayList<>(changes.poll(10, SECONDS)));
+	}
+
+	@Test
+	public void test_database_change_requests_full_scan_on_flush() throws Exception
+	{
+		writeStringToFile(new File(workingCopy, ".svn/wc.db"), "content", UTF_8);
+		writeStringToFile(new File(workingCopy, "file.txt"), "content", UTF_8);
+		assertEquals(asList("."), new ArrayList<>(changes.poll(10, SECONDS)));
+
+		watcher.flush();
+		assertEquals(asList(FULL_SCAN), changes.poll());
+
+		watcher.flush();
+		assertNull(changes.poll());
+	}
+
+	@Test
+	public void test_unversioned_directories_are_not_watched() throws Exception
+	{
+		watcher.close();
+		File checkout = folder.newFolder("checkout");
+		SVNURL url = SVNRepositoryFactory.createLocalRepository(folder.newFolder("repository"), true, false);
+		SVNClientManager manager = SVNClientManager.newInstance();
+		try
+		{
+			manager.getUpdateClient().doCheckout(url, checkout, HEAD, HEAD, INFINITY, false);
+			new File(checkout, "versioned").mkdir();
+			manager.getWCClient().doAdd(new File(checkout, "versioned"), false, false, false, INFINITY, false, false);
+		}
+		finally
+		{
+			manager.dispose();
+		}
+		new File(checkout, "target/classes").mkdirs();
+
+		watcher = new WorkingCopyWatcher(checkout, new DummyWorker());
+		assertTrue(watcher.start(changes::add, () -> {}));
+		writeStringToFile(new File(checkout, "target/classes/file.txt"), "content", UTF_8);
+		writeStringToFile(new File(checkout, "versioned/file.txt"), "content", UTF_8);
+
+		assertEquals(asList("versioned"), new ArrayList<>(changes.poll(10, SECONDS)));
+	}
+
+	@Test
+	public void test_newly_versioned_directories_are_watched() throws Exception
+	{
+		watcher.close();
+		File checkout = folder.newFolder("checkout");
+		SVNURL url = SVNRepositoryFactory.createLocalRepository(folder.newFolder("repository"), true, false);
+		SVNClientManager manager = SVNClientManager.newInstance();
+		try
+		{
+			manager.getUpdateClient().doCheckout(url, checkout, HEAD, HEAD, INFINITY, false);
+			new File(checkout, "added/subdirectory").mkdirs();
+
+			watcher = new WorkingCopyWatcher(checkout, new DummyWorker());
+			assertTrue(watcher.start(changes::add, () -> changes.add(asList(FULL_SCAN))));
+			manager.getWCClient().doAdd(new File(checkout, "added"), false, false, false, INFINITY, false, false);
+		}
+		finally
+		{
+			manager.dispose();
+		}
+		assertEquals(asList(".", "added"), new ArrayList<>(changes.poll(10, SECONDS)));
+
+		writeStringToFile(new File(checkout, "added/subdirectory/file.txt"), "content", UTF_8);
+		assertEquals(asList("added/subdirectory"), new ArrayList<>(changes.poll(10, SECONDS)));
+	}
+
+	@Test
+	public void test_start_without_administrative_directory() throws Exception
+	{
+		watcher = new WorkingCopyWatcher(folder.newFolder("not-a-working-copy"), new DummyWorker());
+
+		assertFalse(watcher.start(changes::add, () -> {}));
+		assertFalse(watcher.isWatching());
+	}
+}
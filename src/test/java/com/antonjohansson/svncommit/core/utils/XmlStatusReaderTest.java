@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.utils;
+
+import com.antonjohansson.svncommit.core.domain.ModifiedItem;
+
+import static com.antonjohansson.svncommit.core.domain.FileStatus.CONFLICTED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.DELETED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.MODIFIED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.NORMAL;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.OBSTRUCTED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.REPLACED;
+import static com.antonjohansson.svncommit.core.domain.FileStatus.UNVERSIONED;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link XmlStatusReader}.
+ *
+ * @author Anton Johansson
+ */
+public class XmlStatusReaderTest extends Assert
+{
+	private final List<ModifiedItem> items = new ArrayList<>();
+
+	@Before
+	public void setUp() throws Exception
+	{
+		try (InputStream stream = new FileInputStream("src/test/resources/status.xml"))
+		{
+			XmlStatusReader.read(stream, items::add);
+		}
+	}
+
+	@Test
+	public void test_that_all_entries_are_read()
+	{
+		assertEquals(7, items.size());
+	}
+
+	@Test
+	public void test_modified_entry()
+	{
+		ModifiedItem item = items.get(0);
+		assertEquals("modified.txt", item.getFileName());
+		assertEquals(MODIFIED, item.getStatus());
+		assertEquals(NORMAL, item.getPropertyStatus());
+		assertTrue(item.isDoCommit());
+	}
+
+	@Test
+	public void test_entry_with_modified_properties_only()
+	{
+		ModifiedItem item = items.get(1);
+		assertEquals(NORMAL, item.getStatus());
+		assertEquals(MODIFIED, item.getPropertyStatus());
+		assertTrue(item.isCommitable());
+		assertTrue(item.isDoCommit());
+	}
+
+	@Test
+	public void test_conflicted_and_locked_entry()
+	{
+		ModifiedItem item = items.get(2);
+		assertEquals(CONFLICTED, item.getStatus());
+		assertTrue(item.isLocked());
+		assertFalse(item.isDoCommit());
+	}
+
+	@Test
+	public void test_tree_conflicted_entry()
+	{
+		ModifiedItem item = items.get(3);
+		assertEquals(DELETED, item.getStatus());
+		assertTrue(item.isTreeConflicted());
+		assertFalse(item.isCommitable());
+		assertFalse(item.isDoCommit());
+	}
+
+	@Test
+	public void test_other_entries()
+	{
+		assertEquals("new file.txt", items.get(4).getFileName());
+		assertEquals(UNVERSIONED, items.get(4).getStatus());
+		assertEquals(OBSTRUCTED, items.get(5).getStatus());
+		assertNull(items.get(5).getChangelist());
+	}
+
+	@Test
+	public void test_changelist_entry()
+	{
+		ModifiedItem item = items.get(6);
+		assertEquals("replaced.txt", item.getFileName());
+		assertEquals(REPLACED, item.getStatus());
+		assertEquals("feature", item.getChangelist());
+	}
+
+	@Test
+	public void test_that_unknown_item_does_not_cause_exception() throws Exception
+	{
+		String xml = "<status><target path=\".\"><entry path=\"x\"><wc-status item=\"some-future-item\" props=\"none\"/></entry></target></status>";
+		List<ModifiedItem> actual = new ArrayList<>();
+
+		XmlStatusReader.read(new ByteArrayInputStream(xml.getBytes(UTF_8)), actual::add);
+
+		assertEquals(MODIFIED, actual.get(0).getStatus());
+	}
+
+	@Test(expected = IOException.class)
+	public void test_that_invalid_xml_causes_exception() throws Exception
+	{
+		XmlStatusReader.read(new ByteArrayInputStream("<status><target".getBytes(UTF_8)), items::add);
+	}
+}
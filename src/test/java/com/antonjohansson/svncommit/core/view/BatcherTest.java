@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.view;
+
+import static java.util.Arrays.asList;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link Batcher}.
+ *
+ * @author Anton Johansson
+ */
+public class BatcherTest extends Assert
+{
+	private final Queue<Runnable> scheduled = new LinkedList<>();
+	private final List<List<String>> batches = new ArrayList<>();
+	private final Batcher<String> batcher = new Batcher<>(scheduled::add, batches::add);
+
+	@Test
+	public void test_items_are_coalesced_while_an_update_is_pending()
+	{
+		batcher.accept("a");
+		batcher.accept("b");
+		batcher.accept("c");
+
+		assertEquals(1, scheduled.size());
+		scheduled.poll().run();
+		assertEquals(asList(asList("a", "b", "c")), batches);
+	}
+
+	@Test
+	public void test_new_update_is_scheduled_after_drain()
+	{
+		batcher.accept("a");
+		scheduled.poll().run();
+		batcher.accept("b");
+
+		assertEquals(1, scheduled.size());
+		scheduled.poll().run();
+		assertEquals(asList(asList("a"), asList("b")), batches);
+	}
+
+	@Test
+	public void test_complete_hands_over_remaining_items_before_running_task()
+	{
+		List<String> events = new ArrayList<>();
+		Batcher<String> batcher = new Batcher<>(scheduled::add, batch -> events.addAll(batch));
+
+		batcher.accept("a");
+		batcher.complete(() -> events.add("complete"));
+		while (!scheduled.isEmpty())
+		{
+			scheduled.poll().run();
+		}
+
+		assertEquals(asList("a", "complete"), events);
+	}
+}
@@ -16,6 +16,7 @@
 package com.antonjohansson.svncommit.core.view;
 
 import static java.lang.System.lineSeparator;
+import static java.lang.Thread.sleep;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -46,35 +47,39 @@ public class ConsoleViewTest extends AbstractViewTest<ConsoleView>
 	}
 
 	@Test
-	public void test_append()
+	public void test_append() throws Exception
 	{
 		verifyThat(console, hasText(""));
 
 		view.append("some test string" + lineSeparator());
+		sleep(100);
 		verifyThat(console, hasText("some test string" + lineSeparator()));
 
 		view.append("another string" + lineSeparator());
+		sleep(100);
 		verifyThat(console, hasText("some test string" + lineSeparator() + "another string" + lineSeparator()));
 	}
 
 	@Test
-	public void test_showCompletionIcon_success()
+	public void test_showCompletionIcon_success() throws Exception
 	{
 		assertFalse(icon.isVisible());
 		assertNull(icon.getImage());
 
 		view.showCompletionIcon(true);
+		sleep(100);
 		assertTrue(icon.isVisible());
 		assertNotNull(icon.getImage());
 	}
 
 	@Test
-	public void test_showCompletionIcon_failed()
+	public void test_showCompletionIcon_failed() throws Exception
 	{
 		assertFalse(icon.isVisible());
 		assertNull(icon.getImage());
 
 		view.showCompletionIcon(false);
+		sleep(100);
 		assertTrue(icon.isVisible());
 		assertNotNull(icon.getImage());
 	}
@@ -15,14 +15,14 @@
  */
 package com.antonjohansson.svncommit.core.view;
 
-import static javafx.scene.control.ProgressIndicator.INDETERMINATE_PROGRESS;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 
 import org.junit.Test;
 
-import javafx.scene.control.ProgressBar;
+import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.StackPane;
 
 /**
@@ -33,23 +33,22 @@ import javafx.scene.layout.StackPane;
 public class LoadingViewTest extends AbstractViewTest<LoadingView>
 {
 	private StackPane contentPane;
-	private StackPane progressPane;
-	private ProgressBar progressBar;
+	private HBox statusPane;
+	private Label statusLabel;
 
 	@Override
 	protected void initNodes()
 	{
 		contentPane = getNode("contentPane");
-		progressPane = getNode("progressPane");
-		progressBar = getNode("progressBar");
+		statusPane = getNode("statusPane");
+		statusLabel = getNode("statusLabel");
 	}
 
 	@Test
 	public void test_initial_state_is_not_loading()
 	{
-		assertThat(progressPane.isVisible(), is(false));
+		assertThat(statusPane.isVisible(), is(false));
 		assertThat(contentPane.getChildren().isEmpty(), is(true));
-		assertThat(view.isLoading(), is(false));
 	}
 
 	@Test
@@ -58,29 +57,26 @@ public class LoadingViewTest extends AbstractViewTest<LoadingView>
 		View content = new DummyView();
 
 		assertThat(contentPane.getChildren().isEmpty(), is(true));
-		assertThat(view.isLoading(), is(false));
 		view.setContent(content);
 		sleep(100);
 		assertThat(contentPane.getChildren().size(), is(1));
 		assertThat(contentPane.getChildren().get(0), is(content.getParent()));
-		assertThat(view.isLoading(), is(false));
+		assertThat(statusPane.isVisible(), is(false));
 	}
 
 	@Test
-	public void test_loading()
+	public void test_progress()
 	{
 		view.setContent(new DummyView());
 
-		assertThat(view.isLoading(), is(false));
-		view.setLoading(true);
+		view.startProgress();
 		sleep(100);
-		assertThat(view.isLoading(), is(true));
-		assertThat(progressPane.isVisible(), is(true));
-		assertThat(progressBar.getProgress(), is(INDETERMINATE_PROGRESS));
-		view.setLoading(false);
+		assertThat(statusPane.isVisible(), is(true));
+		interact(() -> view.updateProgress(1234));
+		assertThat(statusLabel.getText().contains(" entries ("), is(true));
+		view.stopProgress();
 		sleep(100);
-		assertThat(view.isLoading(), is(false));
-		assertThat(progressPane.isVisible(), is(false));
+		assertThat(statusPane.isVisible(), is(false));
 	}
 
 	/**
@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.view;
+
+import static java.util.Arrays.asList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link LogSink}.
+ *
+ * @author Anton Johansson
+ */
+public class LogSinkTest extends Assert
+{
+	private final List<Runnable> scheduled = new ArrayList<>();
+	private final List<String> events = new ArrayList<>();
+	private final LogSink sink = new LogSink(3, scheduled::add, text -> events.add("append:" + text), text -> events.add("replace:" + text));
+
+	@Test
+	public void test_lines_are_coalesced_into_one_flush()
+	{
+		sink.accept("a\n");
+		sink.accept("b\n");
+		assertEquals(1, scheduled.size());
+		assertEquals(asList(), events);
+
+		runScheduled();
+		assertEquals(asList("append:a\nb\n"), events);
+
+		sink.accept("c\n");
+		runScheduled();
+		assertEquals(asList("append:a\nb\n", "append:c\n"), events);
+	}
+
+	@Test
+	public void test_text_is_replaced_when_lines_are_dropped()
+	{
+		sink.accept("a\n");
+		runScheduled();
+
+		sink.accept("b\n");
+		sink.accept("c\n");
+		sink.accept("d\n");
+		sink.accept("e\n");
+		runScheduled();
+
+		assertEquals(asList("append:a\n", "replace:c\nd\ne\n"), events);
+		assertEquals("c\nd\ne\n", sink.getText());
+	}
+
+	@Test
+	public void test_chunks_are_split_into_lines()
+	{
+		sink.accept("a\nb");
+		sink.accept("\nc\nd\ne");
+		runScheduled();
+
+		assertEquals(asList("replace:c\nd\ne"), events);
+
+		sink.accept("f\n");
+		runScheduled();
+
+		assertEquals(asList("replace:c\nd\ne", "append:f\n"), events);
+		assertEquals("c\nd\nef\n", sink.getText());
+	}
+
+	@Test
+	public void test_then()
+	{
+		sink.accept("a\n");
+		sink.then(() -> events.add("done"));
+		runScheduled();
+
+		assertEquals(asList("append:a\n", "done"), events);
+	}
+
+	@Test
+	public void test_many_lines_keep_the_last_ones() throws Exception
+	{
+		List<String> replaced = new ArrayList<>();
+		LogSink sink = new LogSink(1000, Runnable::run, text -> {}, replaced::add);
+
+		Thread producer = new Thread(() ->
+		{
+			for (int i = 0; i < 60000; i++)
+			{
+				sink.accept(i + "\n");
+			}
+		});
+		producer.start();
+		producer.join();
+
+		String text = sink.getText();
+		assertTrue(text.startsWith("59000\n"));
+		assertTrue(text.endsWith("59999\n"));
+		assertEquals(text, replaced.get(replaced.size() - 1));
+	}
+
+	private void runScheduled()
+	{
+		List<Runnable> runnables = new ArrayList<>(scheduled);
+		scheduled.clear();
+		runnables.forEach(Runnable::run);
+	}
+}
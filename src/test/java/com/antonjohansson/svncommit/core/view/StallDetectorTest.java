@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) Anton Johansson <antoon.johansson@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.antonjohansson.svncommit.core.view;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link StallDetector}.
+ *
+ * @author Anton Johansson
+ */
+public class StallDetectorTest extends Assert
+{
+	private final ExecutorService applicationThread = Executors.newSingleThreadExecutor();
+	private final AtomicLong clock = new AtomicLong();
+	private final List<String> reports = new ArrayList<>();
+	private final StallDetector detector = new StallDetector(100, applicationThread::execute, reports::add, clock::get);
+
+	@After
+	public void tearDown()
+	{
+		applicationThread.shutdownNow();
+	}
+
+	@Test
+	public void test_that_quick_heartbeats_are_not_stalls() throws Exception
+	{
+		tick(0);
+		awaitIdle();
+		tick(20);
+		awaitIdle();
+		tick(40);
+
+		assertEquals(0, detector.getStallCount());
+		assertTrue(reports.isEmpty());
+	}
+
+	@Test
+	public void test_that_stalls_are_sampled_and_reported() throws Exception
+	{
+		tick(0);
+		awaitIdle();
+
+		// The next heartbeat waits behind this task
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch blocked = new CountDownLatch(1);
+		applicationThread.execute(() -> blockingCall(blocked, release));
+		assertTrue(blocked.await(5, SECONDS));
+
+		tick(10);
+		tick(50);
+		tick(200);
+		tick(250);
+		clock.set(millis(310));
+		release.countDown();
+		awaitIdle();
+		tick(320);
+
+		assertEquals(1, detector.getStallCount());
+		assertEquals(300, detector.getMaxStallTime());
+		assertEquals(300, detector.getTotalStallTime());
+		assertEquals(1, reports.size());
+		assertTrue(reports.get(0), reports.get(0).startsWith("JavaFX application thread stalled for 300 ms (2 samples)"));
+		assertTrue(reports.get(0), reports.get(0).contains(getClass().getName() + ".blockingCall("));
+		assertEquals("1 stalls, 300 ms in total, 300 ms at most", detector.toString());
+	}
+
+	@Test
+	public void test_that_a_stall_before_the_first_heartbeat_is_sampled() throws Exception
+	{
+		// Starting captures the application thread; the ticks of the timer are driven by hand instead
+		detector.start();
+		detector.stop();
+		awaitIdle();
+
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch blocked = new CountDownLatch(1);
+		applicationThread.execute(() -> blockingCall(blocked, release));
+		assertTrue(blocked.await(5, SECONDS));
+
+		tick(0);
+		tick(10);
+		tick(200);
+		tick(250);
+		clock.set(millis(310));
+		release.countDown();
+		awaitIdle();
+		tick(320);
+
+		assertEquals(1, reports.size());
+		assertTrue(reports.get(0), reports.get(0).contains("(2 samples)"));
+		assertTrue(reports.get(0), reports.get(0).contains(getClass().getName() + ".blockingCall("));
+	}
+
+	private void tick(long time)
+	{
+		clock.set(millis(time));
+		detector.tick();
+	}
+
+	private void awaitIdle() throws Exception
+	{
+		// Tasks run in order, so everything posted before this marker has run when it returns
+		applicationThread.submit(() -> {}).get(5, SECONDS);
+	}
+
+	private static long millis(long time)
+	{
+		return MILLISECONDS.toNanos(time);
+	}
+
+	private static void blockingCall(CountDownLatch blocked, CountDownLatch release)
+	{
+		blocked.countDown();
+		try
+		{
+			release.await();
+		}
+		catch (InterruptedException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+}